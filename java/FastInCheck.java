@@ -0,0 +1,74 @@
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+// checks template.fastIn on inputs that have broken it before: UTF-8 text
+// (bytes >= 0x80), a raw 0xFF byte, non-ASCII after a number, and stdin
+// whose last line has no trailing newline. every case runs through both the
+// file (mmap) path and the stdin path:
+//   javac template.java FastInCheck.java && java FastInCheck
+// prints the first failure and exits with status 1, otherwise prints ok
+public class FastInCheck {
+
+  public static void main(String[] args) throws IOException {
+    byte[] utf8 = "héllo wörld\n€ 42\nlast".getBytes(StandardCharsets.UTF_8);
+    for (boolean stdin : new boolean[] { false, true }) {
+      String src = stdin ? "stdin" : "file";
+
+      template.fastIn in = open(utf8, stdin);
+      check(src + " tokens", "héllo|wörld|€|42|last|null",
+          in.nextToken() + "|" + in.nextToken() + "|" + in.nextToken() + "|" + in.nextInt() + "|"
+              + in.nextToken() + "|" + in.nextToken());
+
+      in = open(utf8, stdin);
+      check(src + " lines", "héllo wörld|€ 42|last|null|null|false",
+          in.nextLine() + "|" + in.nextLine() + "|" + in.nextLine() + "|" + in.nextLine() + "|"
+              + in.nextLine() + "|" + in.hasNextLine());
+
+      // 0xFF is a byte like any other, not end of input
+      in = open(new byte[] { 'a', (byte) 0xff, 'b', '\n', 'c' }, stdin);
+      String line = in.nextLine();
+      check(src + " 0xff", "3|c|null", line.length() + "|" + in.nextLine() + "|" + in.nextLine());
+
+      in = open("12é 7".getBytes(StandardCharsets.UTF_8), stdin);
+      String got;
+      try {
+        got = "" + in.nextLong();
+      } catch (NumberFormatException e) {
+        got = "NumberFormatException";
+      }
+      check(src + " trailing non-ascii", "NumberFormatException", got);
+
+      in = open("abc\ndef".getBytes(StandardCharsets.UTF_8), stdin);
+      check(src + " no final newline", "abc|def|null|null|false",
+          in.nextLine() + "|" + in.nextLine() + "|" + in.nextLine() + "|" + in.nextToken() + "|" + in.hasNext());
+    }
+    System.out.println("ok");
+  }
+
+  static template.fastIn open(byte[] data, boolean stdin) throws IOException {
+    if (stdin) {
+      InputStream old = System.in;
+      System.setIn(new ByteArrayInputStream(data));
+      try {
+        return new template.fastIn();
+      } finally {
+        System.setIn(old);
+      }
+    }
+    File f = File.createTempFile("fastin", ".txt");
+    f.deleteOnExit();
+    Files.write(f.toPath(), data);
+    return new template.fastIn(f.getPath());
+  }
+
+  static void check(String what, String expected, String got) {
+    if (!expected.equals(got)) {
+      System.out.println(what + ": expected " + expected + ", got " + got);
+      System.exit(1);
+    }
+  }
+}
@@ -1,4 +1,8 @@
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.*;
 import java.util.stream.*;
 
 /**
@@ -54,6 +58,211 @@ public class LMTCodeQuestRef {
         return primes;
     }
 
+    /** Segment size in bits for the segmented sieve: 32 KB, about one L1 cache. */
+    static final int SIEVE_SEGMENT_BITS = 1 << 18;
+
+    /** Odd primes p with p*p <= hi (the crossing-off primes for a segmented sieve). */
+    static int[] sieveBasePrimes(long hi) {
+        int root = (int) Math.sqrt((double) hi);
+        while ((long) root * root > hi) root--;
+        while ((long) (root + 1) * (root + 1) <= hi) root++;
+        boolean[] isComposite = new boolean[root + 1];
+        int[] base = new int[Math.max(16, root / 2)];
+        int cnt = 0;
+        for (int i = 3; i <= root; i += 2) {
+            if (!isComposite[i]) {
+                base[cnt++] = i;
+                for (long j = (long) i * i; j <= root; j += 2L * i)
+                    isComposite[(int) j] = true;
+            }
+        }
+        return Arrays.copyOf(base, cnt);
+    }
+
+    /** Odd multiples of 3, 5, 7, 11, 13 repeat every 15015 odd numbers; 64 periods = 15015 words. */
+    private static final int PRESIEVE_PERIOD = 3 * 5 * 7 * 11 * 13;
+    private static final long[] PRESIEVE = new long[PRESIEVE_PERIOD];
+    static {
+        // bit i stands for the odd number 2i+1
+        for (int p : new int[]{3, 5, 7, 11, 13})
+            for (int i = p / 2; i < 64 * PRESIEVE_PERIOD; i += p)
+                PRESIEVE[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Crosses off one segment of odd numbers: bit i of `bits` stands for segLo + 2i
+     * (segLo odd) and is set if that number is composite. Only the first `nbits` bits are used.
+     */
+    static void sieveSegment(long segLo, long[] bits, int nbits, int[] base) {
+        int words = (nbits + 63) >>> 6;
+        // copy the small-prime pattern: find a word-aligned spot in it lined up with segLo
+        long off = (segLo >>> 1) % PRESIEVE_PERIOD;
+        long k = (64 - off % 64) * 23 % 64;                 // 15015 * 23 == 1 (mod 64)
+        int w = (int) ((off + k * PRESIEVE_PERIOD) >>> 6);
+        for (int done = 0; done < words; ) {
+            int n = Math.min(words - done, PRESIEVE_PERIOD - w);
+            System.arraycopy(PRESIEVE, w, bits, done, n);
+            done += n;
+            w = 0;
+        }
+        if (segLo <= 13) {                                   // unmark the small primes themselves
+            for (int p : new int[]{3, 5, 7, 11, 13}) {
+                if (p < segLo) continue;
+                int i = (int) ((p - segLo) >>> 1);
+                bits[i >>> 6] &= ~(1L << i);
+            }
+        }
+        long segHi = segLo + 2L * nbits;                     // exclusive
+        for (int p : base) {
+            if (p <= 13) continue;
+            long pp = (long) p * p;
+            if (pp >= segHi) break;
+            long start;
+            if (pp >= segLo) start = pp;
+            else {
+                start = (segLo + p - 1) / p * p;
+                if ((start & 1) == 0) start += p;
+            }
+            for (int i = (int) ((start - segLo) >>> 1); i < nbits; i += p)
+                bits[i >>> 6] |= 1L << i;
+        }
+        if ((nbits & 63) != 0) bits[words - 1] |= -1L << nbits;   // pad past the end
+    }
+
+    /** Primes in [lo, hi] via an odd-only bitset segmented sieve. Works for hi up to ~1e12+. */
+    static long[] primesInRange(long lo, long hi) {
+        return sieveChunk(lo, hi, sieveBasePrimes(hi));
+    }
+
+    /** primesInRange with the base primes supplied (so chunks can share one table). */
+    static long[] sieveChunk(long lo, long hi, int[] base) {
+        lo = Math.max(lo, 2);
+        if (hi < lo) return new long[0];
+        long[] out = new long[estimatePrimeCount(lo, hi)];
+        int cnt = 0;
+        if (lo == 2) out[cnt++] = 2;
+        long[] bits = new long[SIEVE_SEGMENT_BITS >>> 6];
+        for (long segLo = Math.max(3, lo | 1); segLo <= hi; segLo += 2L * SIEVE_SEGMENT_BITS) {
+            int nbits = (int) Math.min(SIEVE_SEGMENT_BITS, (hi - segLo) / 2 + 1);
+            sieveSegment(segLo, bits, nbits, base);
+            for (int w = 0, words = (nbits + 63) >>> 6; w < words; w++) {
+                long free = ~bits[w];
+                while (free != 0) {
+                    if (cnt == out.length) out = Arrays.copyOf(out, out.length * 2);
+                    out[cnt++] = segLo + 2L * ((w << 6) + Long.numberOfTrailingZeros(free));
+                    free &= free - 1;
+                }
+            }
+        }
+        return cnt == out.length ? out : Arrays.copyOf(out, cnt);
+    }
+
+    /** Calls action on every prime in [lo, hi] in increasing order, without building a list. */
+    static void forEachPrime(long lo, long hi, LongConsumer action) {
+        lo = Math.max(lo, 2);
+        if (hi < lo) return;
+        int[] base = sieveBasePrimes(hi);
+        if (lo == 2) action.accept(2);
+        long[] bits = new long[SIEVE_SEGMENT_BITS >>> 6];
+        for (long segLo = Math.max(3, lo | 1); segLo <= hi; segLo += 2L * SIEVE_SEGMENT_BITS) {
+            int nbits = (int) Math.min(SIEVE_SEGMENT_BITS, (hi - segLo) / 2 + 1);
+            sieveSegment(segLo, bits, nbits, base);
+            for (int w = 0, words = (nbits + 63) >>> 6; w < words; w++) {
+                long free = ~bits[w];
+                while (free != 0) {
+                    action.accept(segLo + 2L * ((w << 6) + Long.numberOfTrailingZeros(free)));
+                    free &= free - 1;
+                }
+            }
+        }
+    }
+
+    /** Segments per parallel task: 16 x 32 KB, big enough to amortize the per-task setup. */
+    static final int SIEVE_SEGMENTS_PER_TASK = 16;
+
+    /** primesInRange on all cores (common fork-join pool). Same result, in order. */
+    static long[] parallelPrimesInRange(long lo, long hi) {
+        return parallelPrimesInRange(lo, hi, ForkJoinPool.commonPool());
+    }
+
+    /** primesInRange on a pool of the given size, e.g. to measure scaling. */
+    static long[] parallelPrimesInRange(long lo, long hi, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return parallelPrimesInRange(lo, hi, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits [lo, hi] into independent chunks of whole segments, sieves them in parallel
+     * against one shared base-prime table, then stitches the chunk results together in order.
+     */
+    static long[] parallelPrimesInRange(long lo, long hi, ForkJoinPool pool) {
+        lo = Math.max(lo, 2);
+        if (hi < lo) return new long[0];
+        int[] base = sieveBasePrimes(hi);
+        long span = 2L * SIEVE_SEGMENT_BITS * SIEVE_SEGMENTS_PER_TASK;
+        long first = lo;
+        int tasks = (int) Math.min(Integer.MAX_VALUE, (hi - lo) / span + 1);
+        long[][] parts;
+        try {
+            parts = pool.submit(() -> IntStream.range(0, tasks).parallel()
+                .mapToObj(t -> {
+                    long a = first + t * span;
+                    return sieveChunk(a, Math.min(hi, a + span - 1), base);
+                })
+                .toArray(long[][]::new)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+        int total = 0;
+        for (long[] part : parts) total += part.length;
+        long[] out = new long[total];
+        int pos = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, out, pos, part.length);
+            pos += part.length;
+        }
+        return out;
+    }
+
+    /** Slight overestimate of the number of primes in [lo, hi], for sizing arrays. */
+    static int estimatePrimeCount(long lo, long hi) {
+        double piHi = hi < 17 ? 7 : hi / Math.log(hi) * (1 + 1.2762 / Math.log(hi));   // Dusart
+        double est = Math.min(piHi, 1.2 * (hi - lo + 1) / Math.log(Math.max(lo, 17)));
+        return (int) Math.min(Integer.MAX_VALUE - 8, est + 64);
+    }
+
+    /** All primes up to limit as an int[] (segmented, odd-only bitset). ~32 KB working memory. */
+    static int[] primesUpTo(int limit) {
+        if (limit < 2) return new int[0];
+        int[] base = sieveBasePrimes(limit);
+        int[] out = new int[estimatePrimeCount(2, limit)];
+        int cnt = 0;
+        out[cnt++] = 2;
+        long[] bits = new long[SIEVE_SEGMENT_BITS >>> 6];
+        for (long segLo = 3; segLo <= limit; segLo += 2L * SIEVE_SEGMENT_BITS) {
+            int nbits = (int) Math.min(SIEVE_SEGMENT_BITS, (limit - segLo) / 2 + 1);
+            sieveSegment(segLo, bits, nbits, base);
+            for (int w = 0, words = (nbits + 63) >>> 6; w < words; w++) {
+                long free = ~bits[w];
+                while (free != 0) {
+                    if (cnt == out.length) out = Arrays.copyOf(out, out.length * 2);
+                    out[cnt++] = (int) (segLo + 2L * ((w << 6) + Long.numberOfTrailingZeros(free)));
+                    free &= free - 1;
+                }
+            }
+        }
+        return cnt == out.length ? out : Arrays.copyOf(out, cnt);
+    }
+
+    /** Primes up to limit as an IntStream. */
+    static IntStream primeStream(int limit) {
+        return Arrays.stream(primesUpTo(limit));
+    }
+
     /** n! — returns long (overflows beyond ~20; use modFactorial for large n). */
     static long factorial(int n) {
         long res = 1;
@@ -61,8 +270,21 @@ public class LMTCodeQuestRef {
         return res;
     }
 
+    /**
+     * Largest modulus for which the plain res * x % mod loops are exact: (mod-1)^2 < 2^63.
+     * Below it they beat Montgomery (the JIT keeps % cheap and nothing is set up); above it
+     * the modular helpers switch to Montgomery (odd mod) or mulMod.
+     */
+    static final long PLAIN_MOD_LIMIT = 3_037_000_499L;
+
     /** n! mod p. */
     static long modFactorial(int n, long mod) {
+        if (mod > PLAIN_MOD_LIMIT) {
+            if ((mod & 1) == 1) return Montgomery.of(mod).factorial(n);
+            long res = 1 % mod;
+            for (int i = 2; i <= n; i++) res = mulMod(res, i % mod, mod);
+            return res;
+        }
         long res = 1;
         for (int i = 2; i <= n; i++) res = res * i % mod;
         return res;
@@ -81,9 +303,95 @@ public class LMTCodeQuestRef {
         return dp[n][r];
     }
 
+    /**
+     * Exact nCr in a long, O(r) time, O(1) memory: multiplicative formula with a gcd
+     * reduction at each step so intermediates never exceed the answer.
+     * Throws ArithmeticException if the result does not fit (see binomialBig).
+     */
+    static long binomialExact(long n, long r) {
+        if (r < 0 || r > n) return 0;
+        r = Math.min(r, n - r);
+        long res = 1;
+        for (long i = 0; i < r; i++) {
+            // res * (n - i) is divisible by (i + 1); split the division between the two factors
+            long g = gcd(res, i + 1);
+            res = Math.multiplyExact(res / g, (n - i) / ((i + 1) / g));
+        }
+        return res;
+    }
+
+    /**
+     * Exact nCr of any size. Uses binomialExact when it fits; otherwise either the prime
+     * exponents of C(n, r) (Kummer/Legendre) when n <= 4r, or the numerator and r! products,
+     * each multiplied with a balanced product tree. O(r) memory either way.
+     */
+    static BigInteger binomialBig(long n, long r) {
+        if (r < 0 || r > n) return BigInteger.ZERO;
+        r = Math.min(r, n - r);
+        try {
+            return BigInteger.valueOf(binomialExact(n, r));
+        } catch (ArithmeticException overflow) {
+            // fall through to the big path
+        }
+        LongList factors = new LongList();
+        if (n <= 4 * r) {
+            final long nn = n, rr = r;
+            long[] acc = {1};
+            forEachPrime(2, n, p -> {
+                int e = 0;                         // Legendre: carries when adding r and n-r in base p
+                for (long pk = p; ; pk *= p) {
+                    e += nn / pk - rr / pk - (nn - rr) / pk;
+                    if (pk > nn / p) break;
+                }
+                for (int i = 0; i < e; i++) acc[0] = packFactor(factors, acc[0], p);
+            });
+            factors.add(acc[0]);
+            return productTree(factors.data, 0, factors.size);
+        }
+        long acc = 1;
+        for (long i = n - r + 1; i <= n; i++) acc = packFactor(factors, acc, i);
+        factors.add(acc);
+        BigInteger num = productTree(factors.data, 0, factors.size);
+        factors.size = 0;
+        acc = 1;
+        for (long i = 2; i <= r; i++) acc = packFactor(factors, acc, i);
+        factors.add(acc);
+        return num.divide(productTree(factors.data, 0, factors.size));
+    }
+
+    /** Multiplies x into acc, or flushes acc to out first if the product would overflow. */
+    private static long packFactor(LongList out, long acc, long x) {
+        if (Math.multiplyHigh(acc, x) == 0 && acc * x >= 0) return acc * x;
+        out.add(acc);
+        return x;
+    }
+
+    /** xs[lo] * ... * xs[hi-1], splitting in halves so big multiplies get balanced operands. */
+    static BigInteger productTree(long[] xs, int lo, int hi) {
+        if (hi - lo <= 8) {
+            BigInteger res = BigInteger.ONE;
+            for (int i = lo; i < hi; i++) res = res.multiply(BigInteger.valueOf(xs[i]));
+            return res;
+        }
+        int mid = (lo + hi) >>> 1;
+        return productTree(xs, lo, mid).multiply(productTree(xs, mid, hi));
+    }
+
+    /** Minimal growable long array. */
+    static class LongList {
+        long[] data = new long[16];
+        int size;
+
+        void add(long x) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = x;
+        }
+    }
+
     /** nCr mod p (p prime) using Fermat's little theorem. */
     static long modCombination(int n, int r, long mod) {
         if (r > n || r < 0) return 0;
+        if (mod > PLAIN_MOD_LIMIT) return Montgomery.of(mod).nCr(n, r);
         long num = 1, den = 1;
         for (int i = 0; i < r; i++) {
             num = num * ((n - i) % mod) % mod;
@@ -113,6 +421,17 @@ public class LMTCodeQuestRef {
 
     /** Modular exponentiation. O(log exp). */
     static long modPow(long base, long exp, long mod) {
+        if (mod > PLAIN_MOD_LIMIT) {
+            if ((mod & 1) == 1) return Montgomery.of(mod).pow(base, exp);
+            long res = 1;
+            base = Math.floorMod(base, mod);
+            while (exp > 0) {
+                if ((exp & 1) == 1) res = mulMod(res, base, mod);
+                base = mulMod(base, base, mod);
+                exp >>= 1;
+            }
+            return res;
+        }
         long res = 1;
         base %= mod;
         while (exp > 0) {
@@ -133,18 +452,275 @@ public class LMTCodeQuestRef {
         return n * (n + 1) / 2;
     }
 
-    /** All divisors of n, sorted. O(sqrt(n)). */
+    /** All divisors of n, sorted. Built from factor(n), so O(n^(1/4)) plus the output. */
     static List<Integer> getDivisors(int n) {
-        List<Integer> lo = new ArrayList<>(), hi = new ArrayList<>();
-        for (int i = 1; (long) i * i <= n; i++) {
-            if (n % i == 0) {
-                lo.add(i);
-                if (i != n / i) hi.add(n / i);
+        List<Integer> res = new ArrayList<>();
+        if (n < 1) return res;
+        for (long d : getDivisors((long) n)) res.add((int) d);
+        return res;
+    }
+
+    /** All divisors of n (n >= 1), sorted, generated from the prime-power lattice of factor(n). */
+    static long[] getDivisors(long n) {
+        if (n < 1) return new long[0];
+        TreeMap<Long, Integer> f = factor(n);
+        int count = 1;
+        for (int e : f.values()) count *= e + 1;
+        long[] divs = new long[count];
+        divs[0] = 1;
+        int len = 1;
+        for (Map.Entry<Long, Integer> pe : f.entrySet()) {
+            long p = pe.getKey(), pk = 1;
+            int cur = len;
+            for (int k = 0; k < pe.getValue(); k++) {
+                pk *= p;
+                for (int i = 0; i < cur; i++) divs[len++] = divs[i] * pk;
+            }
+        }
+        Arrays.sort(divs);
+        return divs;
+    }
+
+    /** (a * b) mod m for 0 <= a, b < m, exact for any m < 2^63 via the 128-bit product. */
+    static long mulMod(long a, long b, long m) {
+        long hi = Math.multiplyHigh(a, b), lo = a * b;
+        if (hi == 0) return Long.remainderUnsigned(lo, m);
+        // 128-by-64 remainder with 32-bit digits (Hacker's Delight divlu); needs hi < m
+        int s = Long.numberOfLeadingZeros(m);
+        m <<= s;
+        hi = (hi << s) | (s == 0 ? 0 : lo >>> (64 - s));
+        lo <<= s;
+        long b32 = 1L << 32, mh = m >>> 32, ml = m & 0xffffffffL;
+        long l1 = lo >>> 32, l0 = lo & 0xffffffffL;
+        long q = Long.divideUnsigned(hi, mh), rhat = hi - q * mh;
+        while (q >= b32 || Long.compareUnsigned(q * ml, (rhat << 32) | l1) > 0) {
+            q--; rhat += mh;
+            if (rhat >= b32) break;
+        }
+        long mid = (hi << 32) + l1 - q * m;
+        q = Long.divideUnsigned(mid, mh); rhat = mid - q * mh;
+        while (q >= b32 || Long.compareUnsigned(q * ml, (rhat << 32) | l0) > 0) {
+            q--; rhat += mh;
+            if (rhat >= b32) break;
+        }
+        return ((mid << 32) + l0 - q * m) >>> s;
+    }
+
+    /** n^-1 mod 2^64 for odd n (Newton; each step doubles the correct bits). */
+    static long montInverse(long n) {
+        long x = n;                                  // correct to 3 bits
+        for (int i = 0; i < 5; i++) x *= 2 - n * x;
+        return x;
+    }
+
+    /**
+     * Montgomery product a * b * 2^-64 mod n for odd n < 2^63 and 0 <= a, b < n.
+     * nInv = montInverse(n). No division, just two 128-bit multiplies.
+     */
+    static long montMul(long a, long b, long n, long nInv) {
+        long hi = Math.multiplyHigh(a, b), m = a * b * nInv;
+        long t = hi - (Math.multiplyHigh(m, n) + ((m >> 63) & n));
+        return t < 0 ? t + n : t;
+    }
+
+    static final int[] MR_BASES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+
+    /** Deterministic Miller–Rabin for every 64-bit n (bases 2..37). ~O(log n) Montgomery mults. */
+    static boolean isPrime(long n) {
+        if (n < 2) return false;
+        for (int p : MR_BASES)
+            if (n % p == 0) return n == p;
+        if (n < 41 * 41) return true;
+        long nInv = montInverse(n), one = Long.remainderUnsigned(-n, n), minusOne = n - one;
+        long r2 = mulMod(one, one, n);
+        int s = Long.numberOfTrailingZeros(n - 1);
+        long d = (n - 1) >> s;
+        outer:
+        for (int a : MR_BASES) {
+            long x = montPow(montMul(a, r2, n, nInv), d, one, n, nInv);
+            if (x == one || x == minusOne) continue;
+            for (int i = 1; i < s; i++) {
+                x = montMul(x, x, n, nInv);
+                if (x == minusOne) continue outer;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /** base^exp with base and result in Montgomery form (one = 2^64 mod n). */
+    static long montPow(long base, long exp, long one, long n, long nInv) {
+        long res = one;
+        while (exp > 0) {
+            if ((exp & 1) == 1) res = montMul(res, base, n, nInv);
+            base = montMul(base, base, n, nInv);
+            exp >>= 1;
+        }
+        return res;
+    }
+
+    /**
+     * Modular arithmetic for one fixed odd modulus n < 2^63 using Montgomery reduction:
+     * every multiply is two Math.multiplyHigh calls and no division. Plain-value methods
+     * (mul, pow, inv, ...) convert in and out; hot loops can stay in Montgomery form with
+     * toMont / mulMont / fromMont. Montgomery.of(n) keeps a 16-slot cache hashed by the
+     * modulus, so code alternating a few moduli (double hashing, CRT) doesn't rebuild.
+     */
+    static class Montgomery {
+        private static final Montgomery[] CACHE = new Montgomery[16];
+
+        final long n, nInv, one, r2;     // one = 2^64 mod n, r2 = 2^128 mod n
+
+        static Montgomery of(long n) {
+            int slot = (int) ((n * 0x9E3779B97F4A7C15L) >>> 60);
+            Montgomery m = CACHE[slot];                 // all fields final: safe to share racily
+            if (m == null || m.n != n) CACHE[slot] = m = new Montgomery(n);
+            return m;
+        }
+
+        Montgomery(long n) {
+            if ((n & 1) == 0 || n < 3) throw new IllegalArgumentException("modulus must be odd and > 1: " + n);
+            this.n = n;
+            nInv = montInverse(n);
+            one = Long.remainderUnsigned(-n, n);
+            r2 = mulMod(one, one, n);
+        }
+
+        long toMont(long a) {
+            return montMul(Math.floorMod(a, n), r2, n, nInv);
+        }
+
+        long fromMont(long x) {
+            return montMul(x, 1, n, nInv);
+        }
+
+        long mulMont(long x, long y) {
+            return montMul(x, y, n, nInv);
+        }
+
+        long addMont(long x, long y) {
+            long t = x - (n - y);
+            return t < 0 ? t + n : t;
+        }
+
+        /** a * b mod n for 0 <= a, b < n. */
+        long mul(long a, long b) {
+            return montMul(montMul(a, b, n, nInv), r2, n, nInv);
+        }
+
+        /** base^exp mod n (exp >= 0). */
+        long pow(long base, long exp) {
+            return fromMont(montPow(toMont(base), exp, one, n, nInv));
+        }
+
+        /** a^-1 mod n via Fermat (n prime). */
+        long inv(long a) {
+            return pow(a, n - 2);
+        }
+
+        /** k! mod n, incrementing k in Montgomery form. */
+        long factorial(int k) {
+            long res = one, iM = one;
+            for (int i = 2; i <= k; i++) {
+                iM = addMont(iM, one);
+                res = mulMont(res, iM);
+            }
+            return fromMont(res);
+        }
+
+        /** C(a, b) mod n (n prime), O(b) multiplies and one inversion. */
+        long nCr(long a, long b) {
+            if (b < 0 || b > a) return 0;
+            long num = one, den = one, top = toMont(a), iM = 0;
+            for (long i = 0; i < b; i++) {
+                num = mulMont(num, top);
+                top = addMont(top, n - one);              // top - 1
+                iM = addMont(iM, one);
+                den = mulMont(den, iM);
+            }
+            return mul(fromMont(num), inv(fromMont(den)));
+        }
+
+        /**
+         * Inverses of every a[i] mod n (n prime, a[i] != 0 mod n) with one pow:
+         * prefix products, invert the total, then peel off one factor per step going back.
+         */
+        long[] inverseAll(long[] a) {
+            int k = a.length;
+            long[] res = new long[k];
+            if (k == 0) return res;
+            long acc = one;
+            for (int i = 0; i < k; i++) {
+                res[i] = acc;                                // prefix product before a[i]
+                acc = mulMont(acc, toMont(a[i]));
+            }
+            long invAcc = montPow(acc, n - 2, one, n, nInv);
+            for (int i = k - 1; i >= 0; i--) {
+                long ai = toMont(a[i]);
+                res[i] = fromMont(mulMont(res[i], invAcc));
+                invAcc = mulMont(invAcc, ai);
+            }
+            return res;
+        }
+    }
+
+    /** A nontrivial factor of odd composite n via Pollard–Brent rho, batched gcds. */
+    static long pollardRho(long n) {
+        long nInv = montInverse(n), one = Long.remainderUnsigned(-n, n);
+        for (long c = one, y0 = 2; ; c = c + one >= n ? c + one - n : c + one, y0++) {
+            long y = y0 % n, x = y, ys = y, q = one, g = 1;
+            final int m = 128;
+            for (long r = 1; g == 1; r <<= 1) {
+                x = y;
+                for (long i = 0; i < r; i++) y = rhoStep(y, c, n, nInv);
+                for (long k = 0; k < r && g == 1; k += m) {
+                    ys = y;
+                    for (long i = 0; i < m && i < r - k; i++) {
+                        y = rhoStep(y, c, n, nInv);
+                        q = montMul(q, Math.abs(x - y), n, nInv);
+                    }
+                    g = gcd(q, n);
+                }
             }
+            if (g == n) {                            // batch overshot: redo one step at a time
+                do {
+                    ys = rhoStep(ys, c, n, nInv);
+                    g = gcd(Math.abs(x - ys), n);
+                } while (g == 1);
+            }
+            if (g != n) return g;
+        }
+    }
+
+    /** y -> y^2 + c (mod n), Montgomery form. */
+    private static long rhoStep(long y, long c, long n, long nInv) {
+        long t = montMul(y, y, n, nInv) - (n - c);
+        return t < 0 ? t + n : t;
+    }
+
+    /** Prime factorization of n >= 1 as {prime -> exponent}, sorted. Trial division then rho. */
+    static TreeMap<Long, Integer> factor(long n) {
+        if (n < 1) throw new IllegalArgumentException("factor(" + n + ")");
+        TreeMap<Long, Integer> res = new TreeMap<>();
+        for (long p = 2; p < 64 && p * p <= n; p += p == 2 ? 1 : 2) {
+            while (n % p == 0) {
+                res.merge(p, 1, Integer::sum);
+                n /= p;
+            }
+        }
+        factorInto(n, res);
+        return res;
+    }
+
+    private static void factorInto(long n, TreeMap<Long, Integer> res) {
+        if (n == 1) return;
+        if (isPrime(n)) {
+            res.merge(n, 1, Integer::sum);
+            return;
         }
-        Collections.sort(hi);
-        lo.addAll(hi);
-        return lo;
+        long d = pollardRho(n);
+        factorInto(d, res);
+        factorInto(n / d, res);
     }
 
     /** Returns true if n is a positive power of 2. */
@@ -157,6 +733,215 @@ public class LMTCodeQuestRef {
         return Integer.bitCount(n);
     }
 
+    /**
+     * Smallest-prime-factor table for many queries on n <= maxN (built once by a linear
+     * sieve in O(maxN), 4 bytes per number). Every query is O(log n).
+     * The methods taking int[] out-arrays allocate nothing; 32 slots always fit the
+     * distinct primes / exponents of an int, and MAX_DIVISORS fits every divisor list below 2^31.
+     */
+    static class SpfTable {
+        static final int MAX_DIVISORS = 1600;
+
+        final int maxN;
+        final int[] spf;
+        final int[] primes;
+
+        SpfTable(int maxN) {
+            this.maxN = maxN;
+            spf = new int[maxN + 1];
+            int[] ps = new int[estimatePrimeCount(2, Math.max(maxN, 2))];
+            int cnt = 0;
+            for (int i = 2; i <= maxN; i++) {
+                if (spf[i] == 0) { spf[i] = i; ps[cnt++] = i; }
+                for (int j = 0; j < cnt; j++) {
+                    int p = ps[j];
+                    long ip = (long) i * p;
+                    if (p > spf[i] || ip > maxN) break;
+                    spf[(int) ip] = p;
+                }
+            }
+            primes = Arrays.copyOf(ps, cnt);
+        }
+
+        boolean isPrime(int n) {
+            return n >= 2 && spf[n] == n;
+        }
+
+        /** Writes the distinct primes of n and their exponents; returns how many. */
+        int factorize(int n, int[] ps, int[] exps) {
+            int k = 0;
+            while (n > 1) {
+                int p = spf[n], e = 0;
+                while (n % p == 0) { n /= p; e++; }
+                ps[k] = p; exps[k] = e; k++;
+            }
+            return k;
+        }
+
+        /** Prime factors of n with multiplicity, ascending, e.g. 12 -> [2, 2, 3]. */
+        int[] factorize(int n) {
+            int[] buf = new int[32];
+            int k = 0;
+            for (; n > 1; n /= spf[n]) buf[k++] = spf[n];
+            return Arrays.copyOf(buf, k);
+        }
+
+        /** Number of divisors, d(n). */
+        long numDivisors(int n) {
+            long res = 1;
+            while (n > 1) {
+                int p = spf[n], e = 0;
+                while (n % p == 0) { n /= p; e++; }
+                res *= e + 1;
+            }
+            return res;
+        }
+
+        /** Sum of divisors, sigma(n). */
+        long sumDivisors(int n) {
+            long res = 1;
+            while (n > 1) {
+                int p = spf[n];
+                long term = 1, pk = 1;
+                while (n % p == 0) { n /= p; pk *= p; term += pk; }
+                res *= term;
+            }
+            return res;
+        }
+
+        /** Euler's totient, phi(n). */
+        int eulerPhi(int n) {
+            int res = n;
+            while (n > 1) {
+                int p = spf[n];
+                while (n % p == 0) n /= p;
+                res -= res / p;
+            }
+            return res;
+        }
+
+        /** Möbius function: 0 if n has a squared prime factor, else (-1)^(number of primes). */
+        int mobius(int n) {
+            int res = 1;
+            while (n > 1) {
+                int p = spf[n];
+                n /= p;
+                if (n % p == 0) return 0;
+                res = -res;
+            }
+            return res;
+        }
+
+        /** Writes the divisors of n (n >= 1) into out, sorted; returns how many. */
+        int divisors(int n, int[] out) {
+            int len = 1;
+            out[0] = 1;
+            while (n > 1) {
+                int p = spf[n], cur = len, pk = 1;
+                while (n % p == 0) {
+                    n /= p;
+                    pk *= p;
+                    for (int i = 0; i < cur; i++) out[len++] = out[i] * pk;
+                }
+            }
+            Arrays.sort(out, 0, len);
+            return len;
+        }
+
+        /** Sorted divisors of n (n >= 1). */
+        int[] divisors(int n) {
+            int[] buf = new int[(int) numDivisors(n)];
+            divisors(n, buf);
+            return buf;
+        }
+    }
+
+    /**
+     * Factorial / inverse-factorial tables mod a prime p <= PLAIN_MOD_LIMIT (so products fit
+     * in a long; larger primes go through modCombination / Montgomery instead). Built in
+     * O(maxN) with a single modInverse; nCr, nPr, multinomials and Catalan numbers are then
+     * O(1) (multinomial O(k)). Get one with ModComb.of(maxN, mod) to reuse tables.
+     */
+    static class ModComb {
+        private static final Map<Long, ModComb> CACHE = new HashMap<>();
+
+        final long mod;
+        final int size;                  // tables cover 0..size
+        final long[] fact, invFact;
+
+        /** Shared instance for mod covering at least 0..maxN (rebuilt bigger if needed). */
+        static synchronized ModComb of(int maxN, long mod) {
+            ModComb c = CACHE.get(mod);
+            if (c == null || c.size < Math.min(maxN, mod - 1)) {
+                c = new ModComb(maxN, mod);
+                CACHE.put(mod, c);
+            }
+            return c;
+        }
+
+        ModComb(int maxN, long mod) {
+            if (mod < 2 || mod > PLAIN_MOD_LIMIT)
+                throw new IllegalArgumentException("modulus must be in [2, PLAIN_MOD_LIMIT]: " + mod);
+            this.mod = mod;
+            size = (int) Math.min(maxN, mod - 1);    // n! == 0 mod p once n >= p
+            fact = new long[size + 1];
+            invFact = new long[size + 1];
+            fact[0] = 1;
+            for (int i = 1; i <= size; i++) fact[i] = fact[i - 1] * i % mod;
+            invFact[size] = modInverse(fact[size], mod);
+            for (int i = size; i > 0; i--) invFact[i - 1] = invFact[i] * i % mod;
+        }
+
+        /** i^-1 mod p for 1 <= i <= size, O(1). */
+        long inverse(int i) {
+            return invFact[i] * fact[i - 1] % mod;
+        }
+
+        /** nCr mod p. Uses Lucas' theorem when n is past the table and the table covers 0..p-1. */
+        long nCr(long n, long r) {
+            if (r < 0 || r > n) return 0;
+            if (n <= size) return fact[(int) n] * invFact[(int) r] % mod * invFact[(int) (n - r)] % mod;
+            if (size < mod - 1)
+                throw new IllegalArgumentException("n = " + n + " is past the table (size " + size + ")");
+            return lucas(n, r);
+        }
+
+        /** Lucas: C(n, r) = prod C(n_i, r_i) over the base-p digits of n and r. */
+        long lucas(long n, long r) {
+            long res = 1;
+            while (n > 0 || r > 0) {
+                int ni = (int) (n % mod), ri = (int) (r % mod);
+                if (ri > ni) return 0;
+                res = res * (fact[ni] * invFact[ri] % mod * invFact[ni - ri] % mod) % mod;
+                n /= mod;
+                r /= mod;
+            }
+            return res;
+        }
+
+        /** nPr = n! / (n-r)! mod p, n <= size. */
+        long nPr(int n, int r) {
+            if (r < 0 || r > n) return 0;
+            return fact[n] * invFact[n - r] % mod;
+        }
+
+        /** (k1 + k2 + ...)! / (k1! k2! ...) mod p, sum <= size. */
+        long multinomial(int... ks) {
+            int total = 0;
+            long res = 1;
+            for (int k : ks) {
+                total += k;
+                res = res * invFact[k] % mod;
+            }
+            return res * fact[total] % mod;
+        }
+
+        /** nth Catalan number C(2n, n) / (n + 1) mod p, 2n <= size. */
+        long catalan(int n) {
+            return fact[2 * n] * invFact[n + 1] % mod * invFact[n] % mod;
+        }
+    }
+
 
     // ─────────────────────────────────────────────────────
     // SEQUENCES
@@ -180,6 +965,21 @@ public class LMTCodeQuestRef {
         return b;
     }
 
+    /** F(n) mod m for n up to ~1e18, by fast doubling. O(log n); any m < 2^63. */
+    static long fibMod(long n, long m) {
+        long a = 0, b = 1 % m;                       // F(k), F(k+1) with k = bits of n seen so far
+        for (int bit = 63 - Long.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            // F(2k) = F(k) * (2F(k+1) - F(k)),  F(2k+1) = F(k)^2 + F(k+1)^2
+            long twoB = b + b >= m || b + b < 0 ? b + b - m : b + b;
+            long c = mulMod(a, twoB >= a ? twoB - a : twoB - a + m, m);
+            long d = mulMod(a, a, m) + mulMod(b, b, m);
+            if (d >= m || d < 0) d -= m;
+            if (((n >>> bit) & 1) == 0) { a = c; b = d; }
+            else { a = d; b = c + d >= m || c + d < 0 ? c + d - m : c + d; }
+        }
+        return a;
+    }
+
     /** nth row of Pascal's triangle (0-indexed). */
     static long[] pascalRow(int n) {
         long[] row = new long[n + 1];
@@ -195,258 +995,3044 @@ public class LMTCodeQuestRef {
         return tri;
     }
 
-
-    // ─────────────────────────────────────────────────────
-    // STRING UTILITIES
-    // ─────────────────────────────────────────────────────
-
-    /** Reverse a string. */
-    static String reverseString(String s) {
-        return new StringBuilder(s).reverse().toString();
+    /** nth row of Pascal's triangle mod a prime, O(n) from the cached ModComb tables (Lucas once n >= mod). */
+    static long[] pascalRowMod(int n, long mod) {
+        ModComb mc = ModComb.of(n, mod);
+        long[] row = new long[n + 1];
+        for (int i = 0; i <= n; i++) row[i] = mc.nCr(n, i);
+        return row;
     }
 
-    /** Case-insensitive palindrome check (ignores spaces). */
-    static boolean isPalindrome(String s) {
-        String c = s.replace(" ", "").toLowerCase();
-        return c.equals(new StringBuilder(c).reverse().toString());
+    /** Index of C(n, k) in a pascalTrianglePacked array. */
+    static int pascalIndex(int n, int k) {
+        return Math.toIntExact((long) n * (n + 1) / 2 + k);     // long: n(n+1) overflows int from n = 46341
     }
 
-    /** Frequency map of each character. */
-    static Map<Character, Integer> charFrequency(String s) {
-        Map<Character, Integer> map = new LinkedHashMap<>();
-        for (char ch : s.toCharArray()) map.merge(ch, 1, Integer::sum);
-        return map;
+    /**
+     * First `rows` rows in one flat array, row n starting at pascalIndex(n, 0). No per-row
+     * headers or pointers. mod == 0 means exact (throws ArithmeticException past row 67).
+     */
+    static long[] pascalTrianglePacked(int rows, long mod) {
+        long size = (long) rows * (rows + 1) / 2;
+        if (rows < 0 || size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("rows = " + rows + " does not fit in one array (max 65535)");
+        long[] tri = new long[(int) size];
+        for (int n = 0; n < rows; n++) {
+            int at = pascalIndex(n, 0), prev = n > 0 ? pascalIndex(n - 1, 0) : 0;
+            tri[at] = tri[at + n] = mod == 1 ? 0 : 1;
+            for (int k = 1; k < n; k++) {
+                long v = mod == 0 ? Math.addExact(tri[prev + k - 1], tri[prev + k]) : tri[prev + k - 1] + tri[prev + k];
+                tri[at + k] = mod != 0 && v >= mod ? v - mod : v;
+            }
+        }
+        return tri;
     }
 
-    /** Length of Longest Common Subsequence. O(mn). */
-    static int lcs(String a, String b) {
-        int m = a.length(), n = b.length();
-        int[][] dp = new int[m + 1][n + 1];
-        for (int i = 1; i <= m; i++)
-            for (int j = 1; j <= n; j++)
-                dp[i][j] = a.charAt(i-1) == b.charAt(j-1)
-                    ? dp[i-1][j-1] + 1
-                    : Math.max(dp[i-1][j], dp[i][j-1]);
-        return dp[m][n];
-    }
+    /**
+     * Streams rows 0, 1, 2, ... of Pascal's triangle, updating one buffer in place
+     * (row[k] += row[k-1], right to left). next() returns that shared buffer; only the
+     * first rowIndex()+1 entries are meaningful and they change on the next call.
+     * mod == 0 means exact (throws ArithmeticException once a value overflows).
+     */
+    static class PascalRows implements Iterator<long[]> {
+        private final long[] row;
+        private final long mod;
+        private int n = -1;
 
-    /** Check if two strings are anagrams. */
-    static boolean isAnagram(String a, String b) {
-        char[] ca = a.toCharArray(), cb = b.toCharArray();
-        Arrays.sort(ca); Arrays.sort(cb);
-        return Arrays.equals(ca, cb);
-    }
+        PascalRows(int maxRow, long mod) {
+            row = new long[maxRow + 1];
+            this.mod = mod;
+        }
 
+        int rowIndex() {
+            return n;
+        }
 
-    // ─────────────────────────────────────────────────────
-    // BASE CONVERSION
-    // ─────────────────────────────────────────────────────
+        public boolean hasNext() {
+            return n + 1 < row.length;
+        }
 
-    /** Decimal integer to binary string. */
-    static String decimalToBinary(int n) {
-        return Integer.toBinaryString(n);
+        public long[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            n++;
+            row[n] = mod == 1 ? 0 : 1;
+            for (int k = n - 1; k > 0; k--) {
+                long v = mod == 0 ? Math.addExact(row[k], row[k - 1]) : row[k] + row[k - 1];
+                row[k] = mod != 0 && v >= mod ? v - mod : v;
+            }
+            return row;
+        }
     }
 
-    /** Binary string to decimal integer. */
-    static int binaryToDecimal(String b) {
-        return Integer.parseInt(b, 2);
+
+    /**
+     * Linear recurrence a[i] = c[0]*a[i-1] + ... + c[k-1]*a[i-k] (mod m, 1 <= m < 2^31: the
+     * lazy reduction adds products below m^2 to sums below m^2, so it needs 2m^2 < 2^63).
+     * nth(n) uses Kitamasa (x^n mod the characteristic polynomial) in O(k^2 log n);
+     * nthByMatrix(n) is the k x k matrix power, O(k^3 log n), kept for small k. Both work on flat long[] buffers allocated once per instance.
+     * fromSequence finds the shortest recurrence for given terms (Berlekamp–Massey, m prime).
+     */
+    static class LinearRecurrence {
+        final int k;
+        final long m, mm;                // mm = m*m, the lazy-reduction bound
+        final long[] c, init;
+        private final long[] prod, sq, mat, acc, tmp;
+
+        LinearRecurrence(long[] c, long[] init, long m) {
+            if (m < 1 || m >= 1L << 31) throw new IllegalArgumentException("modulus must be in [1, 2^31): " + m);
+            k = c.length;
+            this.m = m;
+            mm = m * m;
+            this.c = new long[k];
+            this.init = new long[k];
+            for (int i = 0; i < k; i++) {
+                this.c[i] = Math.floorMod(c[i], m);
+                this.init[i] = Math.floorMod(init[i], m);
+            }
+            prod = new long[2 * k];
+            sq = new long[k];
+            mat = new long[k * k];
+            acc = new long[k * k];
+            tmp = new long[k * k];
+        }
+
+        /** Shortest recurrence generating s (needs about 2k terms), initial values s[0..k-1]. */
+        static LinearRecurrence fromSequence(long[] s, long m) {
+            long[] coef = berlekampMassey(s, m);
+            return new LinearRecurrence(coef, Arrays.copyOf(s, coef.length), m);
+        }
+
+        /** a[n], O(k^2 log n). */
+        long nth(long n) {
+            if (k == 0) return 0;
+            if (n < k) return init[(int) n];
+            // res = x^n mod f, built from the top bit down; polynomials are long[k] by degree
+            long[] res = new long[k];
+            res[0] = 1 % m;
+            for (int bit = 63 - Long.numberOfLeadingZeros(n); bit >= 0; bit--) {
+                polyMulMod(res, res, res);
+                if (((n >>> bit) & 1) != 0) {
+                    long top = res[k - 1];                       // multiply by x
+                    System.arraycopy(res, 0, res, 1, k - 1);
+                    res[0] = 0;
+                    for (int i = 0; i < k; i++) res[k - 1 - i] = (res[k - 1 - i] + top * c[i]) % m;
+                }
+            }
+            long ans = 0;
+            for (int i = 0; i < k; i++) ans = (ans + res[i] * init[i]) % m;
+            return ans;
+        }
+
+        /** out = a * b mod f (out may alias a or b). */
+        private void polyMulMod(long[] a, long[] b, long[] out) {
+            Arrays.fill(prod, 0);
+            for (int i = 0; i < k; i++) {
+                if (a[i] == 0) continue;
+                for (int j = 0; j < k; j++) {
+                    long t = prod[i + j] + a[i] * b[j];
+                    prod[i + j] = t >= mm ? t - mm : t;
+                }
+            }
+            for (int i = 0; i < 2 * k - 1; i++) prod[i] %= m;
+            // x^d = c[0] x^(d-1) + ... + c[k-1] x^(d-k)
+            for (int d = 2 * k - 2; d >= k; d--) {
+                long t = prod[d];
+                if (t == 0) continue;
+                for (int i = 0; i < k; i++) prod[d - 1 - i] = (prod[d - 1 - i] + t * c[i]) % m;
+            }
+            System.arraycopy(prod, 0, out, 0, k);
+        }
+
+        /** a[n] via the companion matrix power, O(k^3 log n). */
+        long nthByMatrix(long n) {
+            if (k == 0) return 0;
+            if (n < k) return init[(int) n];
+            // state (a[i+k-1], ..., a[i]); row 0 holds the coefficients, then a shifted identity
+            Arrays.fill(mat, 0);
+            System.arraycopy(c, 0, mat, 0, k);
+            for (int i = 1; i < k; i++) mat[i * k + i - 1] = 1 % m;
+            Arrays.fill(acc, 0);
+            for (int i = 0; i < k; i++) acc[i * k + i] = 1 % m;
+            for (long e = n - k + 1; e > 0; e >>= 1) {
+                if ((e & 1) == 1) matMul(acc, mat, acc);
+                if (e > 1) matMul(mat, mat, mat);
+            }
+            long ans = 0;
+            for (int j = 0; j < k; j++) ans = (ans + acc[j] * init[k - 1 - j]) % m;
+            return ans;
+        }
+
+        /** out = a * b for flat k x k matrices (out may alias a or b). */
+        private void matMul(long[] a, long[] b, long[] out) {
+            Arrays.fill(tmp, 0);
+            for (int i = 0; i < k; i++)
+                for (int l = 0; l < k; l++) {
+                    long x = a[i * k + l];
+                    if (x == 0) continue;
+                    for (int j = 0, row = l * k, o = i * k; j < k; j++) {
+                        long t = tmp[o + j] + x * b[row + j];
+                        tmp[o + j] = t >= mm ? t - mm : t;
+                    }
+                }
+            for (int i = 0; i < k * k; i++) out[i] = tmp[i] % m;
+        }
+
+        /** Berlekamp–Massey over Z_m (m prime): c with s[i] = sum c[j] * s[i-1-j]. */
+        static long[] berlekampMassey(long[] s, long m) {
+            long[] cur = new long[0], best = new long[0];
+            int bestPos = -1;
+            long bestDelta = 0;
+            for (int i = 0; i < s.length; i++) {
+                long delta = Math.floorMod(s[i], m);
+                for (int j = 0; j < cur.length; j++) delta = (delta - cur[j] * Math.floorMod(s[i - 1 - j], m)) % m;
+                delta = Math.floorMod(delta, m);
+                if (delta == 0) continue;
+                if (bestPos < 0) {
+                    cur = new long[i + 1];
+                    bestPos = i;
+                    bestDelta = delta;
+                    continue;
+                }
+                // cur += (delta / bestDelta) * x^(i - bestPos - 1) * (1, -best)
+                long coef = delta * modInverse(bestDelta, m) % m;
+                int shift = i - bestPos - 1;
+                long[] next = Arrays.copyOf(cur, Math.max(cur.length, shift + 1 + best.length));
+                next[shift] = (next[shift] + coef) % m;
+                for (int j = 0; j < best.length; j++)
+                    next[shift + 1 + j] = Math.floorMod(next[shift + 1 + j] - coef * best[j], m);
+                if (i - cur.length >= bestPos - best.length) {
+                    best = cur;
+                    bestPos = i;
+                    bestDelta = delta;
+                }
+                cur = next;
+            }
+            return cur;
+        }
+    }
+
+
+    // ─────────────────────────────────────────────────────
+    // STRING UTILITIES
+    // ─────────────────────────────────────────────────────
+
+    /** Reverse a string. */
+    static String reverseString(String s) {
+        return new StringBuilder(s).reverse().toString();
+    }
+
+    /** Case-insensitive palindrome check (ignores spaces). Two pointers, no copies. */
+    static boolean isPalindrome(CharSequence s) {
+        int i = 0, j = s.length() - 1;
+        while (i < j) {
+            char a = s.charAt(i), b = s.charAt(j);
+            if (a == ' ') { i++; continue; }
+            if (b == ' ') { j--; continue; }
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+            i++; j--;
+        }
+        return true;
+    }
+
+    /** Palindrome check that only looks at letters and digits, case-insensitive ("A man, a plan..."). */
+    static boolean isPalindromeAlnum(CharSequence s) {
+        int i = 0, j = s.length() - 1;
+        while (i < j) {
+            char a = s.charAt(i), b = s.charAt(j);
+            if (!Character.isLetterOrDigit(a)) { i++; continue; }
+            if (!Character.isLetterOrDigit(b)) { j--; continue; }
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+            i++; j--;
+        }
+        return true;
+    }
+
+    /** Frequency map of each character. */
+    static Map<Character, Integer> charFrequency(String s) {
+        Map<Character, Integer> map = new LinkedHashMap<>();
+        for (char ch : s.toCharArray()) map.merge(ch, 1, Integer::sum);
+        return map;
+    }
+
+    /** Length of Longest Common Subsequence. O(mn/64) time, O(m) memory (see lcsBitParallel). */
+    static int lcs(String a, String b) {
+        return lcsBitParallel(a, b);
+    }
+
+    /** LCS length with two rolling rows: O(mn) time, O(min(m, n)) memory. */
+    static int lcsLinear(CharSequence a, CharSequence b) {
+        if (a.length() < b.length()) { CharSequence t = a; a = b; b = t; }
+        int n = b.length();
+        int[] prev = new int[n + 1], cur = new int[n + 1];
+        for (int i = 0; i < a.length(); i++) {
+            char ca = a.charAt(i);
+            for (int j = 1; j <= n; j++)
+                cur[j] = ca == b.charAt(j - 1) ? prev[j - 1] + 1 : Math.max(prev[j], cur[j - 1]);
+            int[] t = prev; prev = cur; cur = t;
+        }
+        return prev[n];
+    }
+
+    /**
+     * Per-character match masks of a for the bit-parallel algorithms: bit i of
+     * masks[slot(c) * words + i / 64] is set when a[i] == c. Returns the slot map.
+     */
+    private static IntIntMap matchMasks(CharSequence a, int words, LongList masks) {
+        IntIntMap slot = new IntIntMap();
+        masks.size = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int s = slot.get(a.charAt(i), -1);
+            if (s < 0) {
+                s = slot.size();
+                slot.put(a.charAt(i), s);
+                for (int w = 0; w < words; w++) masks.add(0);
+            }
+            masks.data[s * words + (i >>> 6)] |= 1L << i;
+        }
+        return slot;
+    }
+
+    /**
+     * LCS length, 64 cells per machine word (Allison–Dix / Hyyrö): V starts all ones and for
+     * each char of b with match mask M, V = (V + (V & M)) | (V & ~M); the zeros left in V
+     * are the LCS. O(m n / 64) time, O(m * alphabet / 64) memory.
+     */
+    static int lcsBitParallel(CharSequence a, CharSequence b) {
+        if (a.length() > b.length()) { CharSequence t = a; a = b; b = t; }   // bits over the shorter one
+        int m = a.length();
+        if (m == 0) return 0;
+        int words = (m + 63) >>> 6;
+        LongList masks = new LongList();
+        IntIntMap slot = matchMasks(a, words, masks);
+        long[] v = new long[words];
+        Arrays.fill(v, -1L);
+        for (int j = 0, n = b.length(); j < n; j++) {
+            int s = slot.get(b.charAt(j), -1);
+            if (s < 0) continue;                      // no match: V unchanged
+            int base = s * words;
+            long carry = 0;
+            for (int w = 0; w < words; w++) {
+                long x = v[w], u = x & masks.data[base + w];
+                long sum = x + u + carry;
+                carry = Long.compareUnsigned(sum, x) < 0 || (carry == 1 && sum == x) ? 1 : 0;
+                v[w] = sum | (x & ~u);
+            }
+        }
+        int ones = 0;
+        for (int w = 0; w < words - 1; w++) ones += Long.bitCount(v[w]);
+        ones += Long.bitCount(v[words - 1] & (-1L >>> (64 * words - m)));
+        return m - ones;
+    }
+
+    /** An actual longest common subsequence, in O(mn) time and O(m + n) memory (Hirschberg). */
+    static String lcsString(CharSequence a, CharSequence b) {
+        StringBuilder out = new StringBuilder();
+        int n = b.length();
+        hirschberg(a, 0, a.length(), b, 0, n, new int[n + 1], new int[n + 1], new int[n + 1], out);
+        return out.toString();
+    }
+
+    private static void hirschberg(CharSequence a, int a0, int a1, CharSequence b, int b0, int b1,
+                                   int[] f, int[] g, int[] tmp, StringBuilder out) {
+        if (a1 - a0 == 0 || b1 - b0 == 0) return;
+        if (a1 - a0 == 1) {
+            char c = a.charAt(a0);
+            for (int j = b0; j < b1; j++)
+                if (b.charAt(j) == c) { out.append(c); return; }
+            return;
+        }
+        int mid = (a0 + a1) >>> 1, len = b1 - b0;
+        // f[k] = LCS(a[a0..mid), b[b0..b0+k)), g[k] = LCS(a[mid..a1), b[b1-k..b1))
+        lcsRow(a, a0, mid, b, b0, b1, false, f, tmp);
+        lcsRow(a, mid, a1, b, b0, b1, true, g, tmp);
+        int best = -1, split = 0;
+        for (int k = 0; k <= len; k++)
+            if (f[k] + g[len - k] > best) { best = f[k] + g[len - k]; split = k; }
+        hirschberg(a, a0, mid, b, b0, b0 + split, f, g, tmp, out);
+        hirschberg(a, mid, a1, b, b0 + split, b1, f, g, tmp, out);
+    }
+
+    /** Last LCS DP row of a[a0..a1) against every prefix (or, reversed, suffix) of b[b0..b1). */
+    private static void lcsRow(CharSequence a, int a0, int a1, CharSequence b, int b0, int b1,
+                               boolean reversed, int[] row, int[] prev) {
+        int len = b1 - b0;
+        Arrays.fill(row, 0, len + 1, 0);
+        for (int i = a0; i < a1; i++) {
+            char ca = a.charAt(reversed ? a1 - 1 - (i - a0) : i);
+            System.arraycopy(row, 0, prev, 0, len + 1);
+            for (int k = 1; k <= len; k++) {
+                char cb = b.charAt(reversed ? b1 - k : b0 + k - 1);
+                row[k] = ca == cb ? prev[k - 1] + 1 : Math.max(prev[k], row[k - 1]);
+            }
+        }
+    }
+
+    /** Levenshtein distance with two rolling rows: O(mn) time, O(min(m, n)) memory. */
+    static int editDistance(CharSequence a, CharSequence b) {
+        if (a.length() < b.length()) { CharSequence t = a; a = b; b = t; }
+        int n = b.length();
+        int[] prev = new int[n + 1], cur = new int[n + 1];
+        for (int j = 0; j <= n; j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            char ca = a.charAt(i - 1);
+            cur[0] = i;
+            for (int j = 1; j <= n; j++)
+                cur[j] = Math.min(prev[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1),
+                                  Math.min(prev[j], cur[j - 1]) + 1);
+            int[] t = prev; prev = cur; cur = t;
+        }
+        return prev[n];
+    }
+
+    /**
+     * Levenshtein distance, 64 cells per word (Myers / Hyyrö blocks): each block keeps the
+     * vertical +1/-1 deltas of its column slice, and blocks pass the horizontal delta down.
+     * O(m n / 64) time, O(m * alphabet / 64) memory.
+     */
+    static int editDistanceBitParallel(CharSequence a, CharSequence b) {
+        if (a.length() > b.length()) { CharSequence t = a; a = b; b = t; }
+        int m = a.length();
+        if (m == 0) return b.length();
+        int words = (m + 63) >>> 6;
+        LongList masks = new LongList();
+        IntIntMap slot = matchMasks(a, words, masks);
+        long[] pv = new long[words], mv = new long[words];
+        Arrays.fill(pv, -1L);
+        long lastBit = 1L << ((m - 1) & 63);
+        int score = m;
+        for (int j = 0, n = b.length(); j < n; j++) {
+            int s = slot.get(b.charAt(j), -1);
+            int hin = 1;                              // top row: D[0][j] grows by one per column
+            for (int w = 0; w < words; w++) {
+                long eq = s < 0 ? 0 : masks.data[s * words + w];
+                long p = pv[w], mm = mv[w];
+                long xv = eq | mm;
+                if (hin < 0) eq |= 1;
+                long xh = (((eq & p) + p) ^ p) | eq;
+                long ph = mm | ~(xh | p), mh = p & xh;
+                long high = w == words - 1 ? lastBit : 1L << 63;
+                int hout = (ph & high) != 0 ? 1 : (mh & high) != 0 ? -1 : 0;
+                ph <<= 1;
+                mh <<= 1;
+                if (hin < 0) mh |= 1;
+                else if (hin > 0) ph |= 1;
+                pv[w] = mh | ~(xv | ph);
+                mv[w] = ph & xv;
+                hin = hout;
+            }
+            score += hin;
+        }
+        return score;
+    }
+
+    /** Check if two strings are anagrams. O(n) counting, no allocation (per-thread scratch table). */
+    static boolean isAnagram(CharSequence a, CharSequence b) {
+        return isAnagram(a, b, ANAGRAM_SCRATCH.get());
+    }
+
+    private static final ThreadLocal<int[]> ANAGRAM_SCRATCH = ThreadLocal.withInitial(() -> new int[65536]);
+
+    /**
+     * isAnagram with a caller-owned count table (length 65536, or more than the largest char).
+     * The table must be all zeros and is left all zeros.
+     */
+    static boolean isAnagram(CharSequence a, CharSequence b, int[] counts) {
+        int n = a.length();
+        if (n != b.length()) return false;
+        for (int i = 0; i < n; i++) counts[a.charAt(i)]++;
+        boolean same = true;
+        int i = 0;
+        for (; i < n; i++)
+            if (--counts[b.charAt(i)] < 0) { same = false; break; }
+        if (!same) {                                  // put the table back to zero
+            for (int k = 0; k < n; k++) counts[a.charAt(k)] = 0;
+            for (int k = 0; k <= i; k++) counts[b.charAt(k)] = 0;
+        }
+        return same;
+    }
+
+    /** Order-independent 64-bit signature of a string's letter multiset (sum of mixed chars). */
+    static long anagramSignature(CharSequence s) {
+        long sum = 0;
+        for (int i = 0, n = s.length(); i < n; i++) sum += mix64(s.charAt(i) + 0x9E3779B97F4A7C15L);
+        return mix64(sum ^ s.length());
+    }
+
+    /** SplitMix64 finalizer. */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Groups words into anagram classes: result[i] is the class of words[i], classes numbered
+     * 0, 1, ... by first appearance. Words are bucketed by anagramSignature in a LongIntMap and
+     * checked against the class's first word, so a signature collision can't merge classes.
+     * O(total length), no per-word sorted keys.
+     */
+    static int[] anagramClasses(CharSequence[] words) {
+        int[] cls = new int[words.length];
+        int[] rep = new int[16];                      // class -> index of its first word
+        LongIntMap bySig = new LongIntMap(words.length);
+        int[] counts = ANAGRAM_SCRATCH.get();
+        int classes = 0;
+        for (int i = 0; i < words.length; i++) {
+            long sig = anagramSignature(words[i]);
+            while (true) {
+                int c = bySig.get(sig, -1);
+                if (c < 0) {
+                    if (classes == rep.length) rep = Arrays.copyOf(rep, classes * 2);
+                    rep[classes] = i;
+                    bySig.put(sig, classes);
+                    cls[i] = classes++;
+                    break;
+                }
+                if (isAnagram(words[rep[c]], words[i], counts)) {
+                    cls[i] = c;
+                    break;
+                }
+                sig = mix64(sig + 1);                 // collision: probe another signature
+            }
+        }
+        return cls;
+    }
+
+
+    /** Suffix array by prefix doubling with radix sorts: O(n log n), int[] only. */
+    static int[] suffixArray(CharSequence s) {
+        int n = s.length();
+        int[] sa = new int[n], rank = new int[n], tmp = new int[n];
+        if (n == 0) return sa;
+        int[] cnt = new int[Math.max(65536, n) + 1];
+        for (int i = 0; i < n; i++) cnt[s.charAt(i)]++;
+        for (int i = 1; i < cnt.length; i++) cnt[i] += cnt[i - 1];
+        for (int i = n - 1; i >= 0; i--) sa[--cnt[s.charAt(i)]] = i;
+        int classes = 1;
+        rank[sa[0]] = 0;
+        for (int i = 1; i < n; i++) {
+            if (s.charAt(sa[i]) != s.charAt(sa[i - 1])) classes++;
+            rank[sa[i]] = classes - 1;
+        }
+        for (int k = 1; classes < n; k <<= 1) {
+            // order by second key (rank[i + k], missing = smallest), then stable sort by rank[i]
+            int p = 0;
+            for (int i = n - k; i < n; i++) tmp[p++] = i;
+            for (int i = 0; i < n; i++) if (sa[i] >= k) tmp[p++] = sa[i] - k;
+            Arrays.fill(cnt, 0, classes + 1, 0);
+            for (int i = 0; i < n; i++) cnt[rank[i]]++;
+            for (int i = 1; i < classes; i++) cnt[i] += cnt[i - 1];
+            for (int i = n - 1; i >= 0; i--) sa[--cnt[rank[tmp[i]]]] = tmp[i];
+            tmp[sa[0]] = 0;
+            classes = 1;
+            for (int i = 1; i < n; i++) {
+                int a = sa[i], b = sa[i - 1];
+                int ra = a + k < n ? rank[a + k] : -1, rb = b + k < n ? rank[b + k] : -1;
+                if (rank[a] != rank[b] || ra != rb) classes++;
+                tmp[a] = classes - 1;
+            }
+            int[] t = rank; rank = tmp; tmp = t;
+        }
+        return sa;
+    }
+
+    /** Kasai: lcp[i] = longest common prefix of suffixes sa[i-1] and sa[i] (lcp[0] = 0). O(n). */
+    static int[] lcpArray(CharSequence s, int[] sa) {
+        int n = sa.length;
+        int[] rank = new int[n], lcp = new int[n];
+        for (int i = 0; i < n; i++) rank[sa[i]] = i;
+        for (int i = 0, h = 0; i < n; i++) {
+            if (rank[i] == 0) { h = 0; continue; }
+            int j = sa[rank[i] - 1];
+            while (i + h < n && j + h < n && s.charAt(i + h) == s.charAt(j + h)) h++;
+            lcp[rank[i]] = h;
+            if (h > 0) h--;
+        }
+        return lcp;
+    }
+
+    /** Z-function: z[i] = longest common prefix of s and s[i..] (z[0] = n). O(n). */
+    static int[] zFunction(CharSequence s) {
+        int n = s.length();
+        int[] z = new int[n];
+        if (n == 0) return z;
+        z[0] = n;
+        for (int i = 1, l = 0, r = 0; i < n; i++) {
+            if (i < r) z[i] = Math.min(r - i, z[i - l]);
+            while (i + z[i] < n && s.charAt(z[i]) == s.charAt(i + z[i])) z[i]++;
+            if (i + z[i] > r) { l = i; r = i + z[i]; }
+        }
+        return z;
+    }
+
+    /** KMP prefix function: pi[i] = longest proper border of s[0..i]. O(n). */
+    static int[] prefixFunction(CharSequence s) {
+        int n = s.length();
+        int[] pi = new int[n];
+        for (int i = 1; i < n; i++) {
+            int k = pi[i - 1];
+            while (k > 0 && s.charAt(i) != s.charAt(k)) k = pi[k - 1];
+            if (s.charAt(i) == s.charAt(k)) k++;
+            pi[i] = k;
+        }
+        return pi;
+    }
+
+    /** Start positions of every (possibly overlapping) occurrence of pattern in text. O(n + m). */
+    static int[] kmpSearch(CharSequence text, CharSequence pattern) {
+        int m = pattern.length();
+        if (m == 0) return new int[0];
+        int[] pi = prefixFunction(pattern), out = new int[16];
+        int cnt = 0;
+        for (int i = 0, k = 0; i < text.length(); i++) {
+            while (k > 0 && text.charAt(i) != pattern.charAt(k)) k = pi[k - 1];
+            if (text.charAt(i) == pattern.charAt(k)) k++;
+            if (k == m) {
+                if (cnt == out.length) out = Arrays.copyOf(out, cnt * 2);
+                out[cnt++] = i - m + 1;
+                k = pi[k - 1];
+            }
+        }
+        return Arrays.copyOf(out, cnt);
+    }
+
+    /**
+     * Polynomial hashes of every prefix mod the Mersenne prime 2^61 - 1 (random base, so no
+     * fixed anti-hash input). hash(l, r) of any substring in O(1) after O(n) setup.
+     */
+    static class RollingHash {
+        static final long MOD61 = (1L << 61) - 1;
+        static final long BASE = 1_000_003 + new Random().nextInt(1 << 30);
+
+        final long[] prefix, pow;
+
+        RollingHash(CharSequence s) {
+            int n = s.length();
+            prefix = new long[n + 1];
+            pow = new long[n + 1];
+            pow[0] = 1;
+            for (int i = 0; i < n; i++) {
+                prefix[i + 1] = mod61(mul61(prefix[i], BASE) + s.charAt(i) + 1);
+                pow[i + 1] = mul61(pow[i], BASE);
+            }
+        }
+
+        /** Hash of s[l..r). */
+        long hash(int l, int r) {
+            long h = prefix[r] - mul61(prefix[l], pow[r - l]);
+            return h < 0 ? h + MOD61 : h;
+        }
+
+        /** Hash of a standalone string, comparable with hash(l, r). */
+        static long of(CharSequence t) {
+            long h = 0;
+            for (int i = 0; i < t.length(); i++) h = mod61(mul61(h, BASE) + t.charAt(i) + 1);
+            return h;
+        }
+
+        /** a * b mod 2^61 - 1 for a, b < 2^61: split the 122-bit product at bit 61. */
+        static long mul61(long a, long b) {
+            long hi = Math.multiplyHigh(a, b), lo = a * b;
+            return mod61((lo & MOD61) + ((lo >>> 61) | (hi << 3)));
+        }
+
+        static long mod61(long x) {
+            x = (x & MOD61) + (x >>> 61);
+            return x >= MOD61 ? x - MOD61 : x;
+        }
+    }
+
+    /** Longest palindromic substring in O(n) (Manacher on the #-interleaved string). */
+    static String longestPalindrome(CharSequence s) {
+        int n = s.length();
+        if (n == 0) return "";
+        int m = 2 * n + 1;
+        int[] rad = new int[m];                       // radius in the interleaved string
+        int bestC = 0;
+        for (int i = 0, c = 0, r = 0; i < m; i++) {
+            int k = i < r ? Math.min(rad[2 * c - i], r - i) : 0;
+            // interleaved position p is a real char when p is odd: s[(p - 1) / 2]
+            while (i - k - 1 >= 0 && i + k + 1 < m
+                   && ((i - k - 1) % 2 == 0 || s.charAt((i - k - 2) / 2) == s.charAt((i + k) / 2))) k++;
+            rad[i] = k;
+            if (i + k > r) { c = i; r = i + k; }
+            if (k > rad[bestC]) bestC = i;
+        }
+        int start = (bestC - rad[bestC]) / 2;
+        return s.subSequence(start, start + rad[bestC]).toString();
+    }
+
+    /**
+     * Reusable substring index over one text: suffix array + LCP built once, then each pattern
+     * query is two binary searches, O(m log n), independent of how often the text is searched.
+     */
+    static class StringIndex {
+        final CharSequence text;
+        final int[] sa, lcp;
+
+        StringIndex(CharSequence text) {
+            this.text = text;
+            sa = suffixArray(text);
+            lcp = lcpArray(text, sa);
+        }
+
+        /** Compares pattern with the suffix at pos, looking at no more than pattern.length() chars. */
+        private int compare(CharSequence p, int pos) {
+            int n = text.length(), m = p.length();
+            for (int i = 0; i < m; i++) {
+                if (pos + i >= n) return 1;           // suffix ran out: pattern is bigger
+                int d = p.charAt(i) - text.charAt(pos + i);
+                if (d != 0) return d;
+            }
+            return 0;
+        }
+
+        /** [from, to) range of sa whose suffixes start with pattern. */
+        int[] range(CharSequence pattern) {
+            int lo = 0, hi = sa.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(pattern, sa[mid]) > 0) lo = mid + 1; else hi = mid;
+            }
+            int from = lo;
+            hi = sa.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(pattern, sa[mid]) >= 0) lo = mid + 1; else hi = mid;
+            }
+            return new int[]{from, lo};
+        }
+
+        int count(CharSequence pattern) {
+            int[] r = range(pattern);
+            return r[1] - r[0];
+        }
+
+        boolean contains(CharSequence pattern) {
+            return count(pattern) > 0;
+        }
+
+        /** Sorted start positions of pattern in the text. */
+        int[] occurrences(CharSequence pattern) {
+            int[] r = range(pattern);
+            int[] pos = Arrays.copyOfRange(sa, r[0], r[1]);
+            Arrays.sort(pos);
+            return pos;
+        }
+
+        /** Longest substring occurring at least twice (max LCP), "" if none. */
+        String longestRepeatedSubstring() {
+            int best = 0;
+            for (int i = 1; i < lcp.length; i++) if (lcp[i] > lcp[best]) best = i;
+            return lcp.length == 0 ? "" : text.subSequence(sa[best], sa[best] + lcp[best]).toString();
+        }
+    }
+
+
+    // ─────────────────────────────────────────────────────
+    // BASE CONVERSION
+    // ─────────────────────────────────────────────────────
+
+    /** Decimal integer to binary string. */
+    static String decimalToBinary(int n) {
+        return Integer.toBinaryString(n);
+    }
+
+    /** Binary string to decimal integer. */
+    static int binaryToDecimal(String b) {
+        return Integer.parseInt(b, 2);
+    }
+
+    /** Decimal to any base (2–16) string. */
+    static String decimalToBase(int n, int base) {
+        return Integer.toString(n, base).toUpperCase();
+    }
+
+    /** Any base string to decimal. */
+    static int baseToDecimal(String s, int base) {
+        return Integer.parseInt(s, base);
+    }
+
+
+    // ─────────────────────────────────────────────────────
+    // ARRAY UTILITIES
+    // ─────────────────────────────────────────────────────
+
+    /** Binary search on sorted array. Returns index (the first one, if repeated) or -1. */
+    static int binarySearch(int[] arr, int target) {
+        int i = lowerBound(arr, target);
+        return i < arr.length && arr[i] == target ? i : -1;
+    }
+
+    // lowerBound = first index with a[i] >= key, upperBound = first index with a[i] > key;
+    // both return the range end when there is none. equalRange returns {lowerBound, upperBound}.
+
+    static int lowerBound(int[] a, int key) {
+        return lowerBound(a, 0, a.length, key);
+    }
+
+    static int lowerBound(int[] a, int from, int to, int key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] < key) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    static int upperBound(int[] a, int key) {
+        return upperBound(a, 0, a.length, key);
+    }
+
+    static int upperBound(int[] a, int from, int to, int key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] <= key) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    static int[] equalRange(int[] a, int key) {
+        int lo = lowerBound(a, key);
+        return new int[]{lo, upperBound(a, lo, a.length, key)};
+    }
+
+    static int lowerBound(long[] a, long key) {
+        return lowerBound(a, 0, a.length, key);
+    }
+
+    static int lowerBound(long[] a, int from, int to, long key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] < key) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    static int upperBound(long[] a, long key) {
+        return upperBound(a, 0, a.length, key);
+    }
+
+    static int upperBound(long[] a, int from, int to, long key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (a[mid] <= key) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    static int[] equalRange(long[] a, long key) {
+        int lo = lowerBound(a, key);
+        return new int[]{lo, upperBound(a, lo, a.length, key)};
+    }
+
+    /**
+     * lowerBound with a fixed trip count of ceil(log2 n) and no data-dependent branch:
+     * the halving step is a conditional move, so random lookups don't pay for mispredictions.
+     */
+    static int lowerBoundBranchless(int[] a, int key) {
+        int n = a.length, base = 0;
+        if (n == 0) return 0;
+        while (n > 1) {
+            int half = n >>> 1;
+            base = a[base + half] < key ? base + half : base;
+            n -= half;
+        }
+        return base + (a[base] < key ? 1 : 0);
+    }
+
+    static int lowerBoundBranchless(long[] a, long key) {
+        int n = a.length, base = 0;
+        if (n == 0) return 0;
+        while (n > 1) {
+            int half = n >>> 1;
+            base = a[base + half] < key ? base + half : base;
+            n -= half;
+        }
+        return base + (a[base] < key ? 1 : 0);
+    }
+
+    /**
+     * lowerBound for every query in one pass; queries must be sorted ascending. Each search
+     * gallops forward from the previous answer, so the total cost is O(m log(n/m)) and
+     * never worse than a merge of the two arrays. Returns out.
+     */
+    static int[] lowerBounds(int[] a, int[] sortedQueries, int[] out) {
+        int n = a.length, pos = 0;
+        for (int q = 0; q < sortedQueries.length; q++) {
+            int key = sortedQueries[q], step = 1, hi = pos;
+            while (hi < n && a[hi] < key) {
+                pos = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            pos = lowerBound(a, pos, Math.min(hi, n), key);
+            out[q] = pos;
+        }
+        return out;
+    }
+
+    static int[] lowerBounds(int[] a, int[] sortedQueries) {
+        return lowerBounds(a, sortedQueries, new int[sortedQueries.length]);
+    }
+
+    static int[] lowerBounds(long[] a, long[] sortedQueries, int[] out) {
+        int n = a.length, pos = 0;
+        for (int q = 0; q < sortedQueries.length; q++) {
+            long key = sortedQueries[q];
+            int step = 1, hi = pos;
+            while (hi < n && a[hi] < key) {
+                pos = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            pos = lowerBound(a, pos, Math.min(hi, n), key);
+            out[q] = pos;
+        }
+        return out;
+    }
+
+    /**
+     * Read-only sorted int table in Eytzinger (BFS heap) order: node k's children are 2k and
+     * 2k+1, so the first levels of every search share a few cache lines and the next
+     * probes sit next to each other in memory. The search loop is branch-free. Java has no
+     * software prefetch, so unlike the C version nothing is fetched levels ahead; the gain
+     * comes from the layout alone.
+     * lowerBound returns the index into the original sorted array, like the static one.
+     */
+    static class EytzingerIndex {
+        final int n;
+        private final int[] b, rank;    // 1-based; rank[k] = sorted index of b[k], rank[0] = n
+
+        EytzingerIndex(int[] sorted) {
+            n = sorted.length;
+            b = new int[n + 1];
+            rank = new int[n + 1];
+            rank[0] = n;
+            // in-order walk of the implicit tree assigns sorted positions
+            int i = 0, k = 1;
+            int[] stack = new int[33];
+            int sp = 0;
+            while (sp > 0 || k <= n) {
+                if (k <= n) {
+                    stack[sp++] = k;
+                    k <<= 1;
+                } else {
+                    k = stack[--sp];
+                    b[k] = sorted[i];
+                    rank[k] = i++;
+                    k = 2 * k + 1;
+                }
+            }
+        }
+
+        int lowerBound(int key) {
+            return rank[node(key)];
+        }
+
+        boolean contains(int key) {
+            int k = node(key);
+            return k != 0 && b[k] == key;
+        }
+
+        /** Node holding the lower bound of key, 0 if every element is smaller. */
+        private int node(int key) {
+            int k = 1;
+            while (k <= n) k = 2 * k + (b[k] < key ? 1 : 0);
+            return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+        }
+    }
+
+    /** Frequency map of integer array elements. */
+    static Map<Integer, Integer> elementFrequency(int[] arr) {
+        Map<Integer, Integer> map = new LinkedHashMap<>();
+        for (int x : arr) map.merge(x, 1, Integer::sum);
+        return map;
+    }
+
+    /** Max element in array. */
+    static int maxElement(int[] arr) {
+        int max = arr[0];
+        for (int x : arr) max = Math.max(max, x);
+        return max;
+    }
+
+    /** Min element in array. */
+    static int minElement(int[] arr) {
+        int min = arr[0];
+        for (int x : arr) min = Math.min(min, x);
+        return min;
+    }
+
+    /** Kadane's algorithm — maximum subarray sum. O(n). */
+    static int maxSubarraySum(int[] arr) {
+        int best = arr[0], curr = arr[0];
+        for (int i = 1; i < arr.length; i++) {
+            curr = Math.max(arr[i], curr + arr[i]);
+            best = Math.max(best, curr);
+        }
+        return best;
+    }
+
+    /** Shuffle array in-place (Fisher-Yates). */
+    static void shuffleArray(int[] arr) {
+        Random rng = new Random();
+        for (int i = arr.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int tmp = arr[i]; arr[i] = arr[j]; arr[j] = tmp;
+        }
+    }
+
+    /** All 2^n subsets of arr. */
+    static List<List<Integer>> generateSubsets(int[] arr) {
+        int n = arr.length;
+        List<List<Integer>> result = new ArrayList<>();
+        for (int mask = 0; mask < (1 << n); mask++) {
+            List<Integer> sub = new ArrayList<>();
+            for (int i = 0; i < n; i++)
+                if ((mask & (1 << i)) != 0) sub.add(arr[i]);
+            result.add(sub);
+        }
+        return result;
+    }
+
+    /** Rotate array right by k positions. Returns new array. */
+    static int[] rotateArray(int[] arr, int k) {
+        int n = arr.length;
+        k = ((k % n) + n) % n;
+        int[] res = new int[n];
+        for (int i = 0; i < n; i++) res[(i + k) % n] = arr[i];
+        return res;
+    }
+
+    /** Prefix sum array. ps[i] = arr[0]+...+arr[i]. */
+    static int[] prefixSums(int[] arr) {
+        int[] ps = new int[arr.length];
+        ps[0] = arr[0];
+        for (int i = 1; i < arr.length; i++) ps[i] = ps[i-1] + arr[i];
+        return ps;
+    }
+
+    /** Range sum arr[l..r] using prefix sums. O(1). */
+    static int rangeSum(int[] prefix, int l, int r) {
+        return prefix[r] - (l > 0 ? prefix[l-1] : 0);
+    }
+
+    /** Prefix sums in long, safe from int overflow. For updates between queries see FenwickTree. */
+    static long[] prefixSumsLong(int[] arr) {
+        long[] ps = new long[arr.length];
+        long s = 0;
+        for (int i = 0; i < arr.length; i++) ps[i] = s += arr[i];
+        return ps;
+    }
+
+    static long rangeSum(long[] prefix, int l, int r) {
+        return prefix[r] - (l > 0 ? prefix[l-1] : 0);
+    }
+
+    /** Two-sum: returns {i, j} where arr[i]+arr[j]==target, or null. */
+    static int[] twoSum(int[] arr, int target) {
+        IntIntMap seen = new IntIntMap(arr.length);
+        for (int i = 0; i < arr.length; i++) {
+            int j = seen.get(target - arr[i], -1);
+            if (j >= 0) return new int[]{j, i};
+            seen.put(arr[i], i);
+        }
+        return null;
+    }
+
+    /** Merge sort. Returns new sorted array (bottom-up, one scratch buffer). */
+    static int[] mergeSort(int[] arr) {
+        if (arr.length <= 1) return arr;
+        int[] res = arr.clone();
+        mergeSort(res, new int[res.length]);
+        return res;
+    }
+
+
+    // ─────────────────────────────────────────────────────
+    // SORTING (primitive, scratch-buffer based)
+    // ─────────────────────────────────────────────────────
+    // Every sort takes an optional scratch array at least as long as the input, so
+    // repeated sorts allocate nothing; the overloads without one allocate it once.
+
+    /** Stable bottom-up merge sort in place: runs of 1, 2, 4, ... ping-pong between a and scratch. */
+    static void mergeSort(int[] a, int[] scratch) {
+        int n = a.length;
+        int[] src = a, dst = scratch;
+        for (int w = 1; w < n; w <<= 1) {
+            for (int lo = 0; lo < n; lo += 2 * w) {
+                int mid = Math.min(lo + w, n), hi = Math.min(lo + 2 * w, n);
+                mergeRuns(src, lo, mid, hi, dst);
+            }
+            int[] t = src; src = dst; dst = t;
+        }
+        if (src != a) System.arraycopy(src, 0, a, 0, n);
+    }
+
+    /** Merges sorted src[lo..mid) and src[mid..hi) into dst[lo..hi). */
+    private static void mergeRuns(int[] src, int lo, int mid, int hi, int[] dst) {
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) dst[k++] = src[i] <= src[j] ? src[i++] : src[j++];
+        while (i < mid) dst[k++] = src[i++];
+        while (j < hi) dst[k++] = src[j++];
+    }
+
+    static final int RADIX_BITS = 11, RADIX = 1 << RADIX_BITS;
+
+    /** Per-thread digit counts, so the radix sorts (and parallelSort's leaves) allocate nothing. */
+    private static final ThreadLocal<int[]> RADIX_COUNTS = ThreadLocal.withInitial(() -> new int[RADIX]);
+
+    /** LSD radix sort, 3 passes of 11 bits; the sign bit is flipped so negatives come first. */
+    static void radixSort(int[] a) {
+        radixSort(a, 0, a.length, new int[a.length]);
+    }
+
+    /** Sorts a[from..to) using scratch[from..to). Passes whose digit never varies are skipped. */
+    static void radixSort(int[] a, int from, int to, int[] scratch) {
+        if (to - from < 2) return;
+        int[] src = a, dst = scratch, cnt = RADIX_COUNTS.get();
+        for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+            Arrays.fill(cnt, 0);
+            for (int i = from; i < to; i++) cnt[((src[i] ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)]++;
+            if (cnt[((src[from] ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)] == to - from) continue;
+            for (int i = 0, sum = from; i < RADIX; i++) { int c = cnt[i]; cnt[i] = sum; sum += c; }
+            for (int i = from; i < to; i++) dst[cnt[((src[i] ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)]++] = src[i];
+            int[] t = src; src = dst; dst = t;
+        }
+        if (src != a) System.arraycopy(src, from, a, from, to - from);
+    }
+
+    static void radixSort(long[] a) {
+        radixSort(a, new long[a.length]);
+    }
+
+    /** LSD radix sort for long[], 6 passes of 11 bits, sign bit flipped. */
+    static void radixSort(long[] a, long[] scratch) {
+        int n = a.length;
+        if (n < 2) return;
+        long[] src = a, dst = scratch;
+        int[] cnt = RADIX_COUNTS.get();
+        for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+            Arrays.fill(cnt, 0);
+            for (int i = 0; i < n; i++) cnt[(int) ((src[i] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)]++;
+            if (cnt[(int) ((src[0] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)] == n) continue;
+            for (int i = 0, sum = 0; i < RADIX; i++) { int c = cnt[i]; cnt[i] = sum; sum += c; }
+            for (int i = 0; i < n; i++) dst[cnt[(int) ((src[i] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)]++] = src[i];
+            long[] t = src; src = dst; dst = t;
+        }
+        if (src != a) System.arraycopy(src, 0, a, 0, n);
+    }
+
+    /**
+     * Stable sort of keys, applying the same permutation to vals (parallel arrays).
+     * keyScratch / valScratch must be at least keys.length long.
+     */
+    static void sortByKey(int[] keys, int[] vals, int[] keyScratch, int[] valScratch) {
+        int n = keys.length;
+        if (n < 2) return;
+        int[] ks = keys, kd = keyScratch, vs = vals, vd = valScratch, cnt = RADIX_COUNTS.get();
+        for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+            Arrays.fill(cnt, 0);
+            for (int i = 0; i < n; i++) cnt[((ks[i] ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)]++;
+            if (cnt[((ks[0] ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)] == n) continue;
+            for (int i = 0, sum = 0; i < RADIX; i++) { int c = cnt[i]; cnt[i] = sum; sum += c; }
+            for (int i = 0; i < n; i++) {
+                int at = cnt[((ks[i] ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1)]++;
+                kd[at] = ks[i];
+                vd[at] = vs[i];
+            }
+            int[] t = ks; ks = kd; kd = t;
+            t = vs; vs = vd; vd = t;
+        }
+        if (ks != keys) {
+            System.arraycopy(ks, 0, keys, 0, n);
+            System.arraycopy(vs, 0, vals, 0, n);
+        }
+    }
+
+    static void sortByKey(int[] keys, int[] vals) {
+        sortByKey(keys, vals, new int[keys.length], new int[keys.length]);
+    }
+
+    /** sortByKey for long keys with int values. */
+    static void sortByKey(long[] keys, int[] vals, long[] keyScratch, int[] valScratch) {
+        int n = keys.length;
+        if (n < 2) return;
+        long[] ks = keys, kd = keyScratch;
+        int[] vs = vals, vd = valScratch, cnt = RADIX_COUNTS.get();
+        for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+            Arrays.fill(cnt, 0);
+            for (int i = 0; i < n; i++) cnt[(int) ((ks[i] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)]++;
+            if (cnt[(int) ((ks[0] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)] == n) continue;
+            for (int i = 0, sum = 0; i < RADIX; i++) { int c = cnt[i]; cnt[i] = sum; sum += c; }
+            for (int i = 0; i < n; i++) {
+                int at = cnt[(int) ((ks[i] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1)]++;
+                kd[at] = ks[i];
+                vd[at] = vs[i];
+            }
+            long[] t = ks; ks = kd; kd = t;
+            int[] u = vs; vs = vd; vd = u;
+        }
+        if (ks != keys) {
+            System.arraycopy(ks, 0, keys, 0, n);
+            System.arraycopy(vs, 0, vals, 0, n);
+        }
+    }
+
+    static void sortByKey(long[] keys, int[] vals) {
+        sortByKey(keys, vals, new long[keys.length], new int[keys.length]);
+    }
+
+    /** Stable argsort: p with keys[p[0]] <= keys[p[1]] <= ...; keys is not modified. */
+    static int[] argsort(int[] keys) {
+        int n = keys.length;
+        int[] k = keys.clone(), idx = new int[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+        sortByKey(k, idx);
+        return idx;
+    }
+
+    static int[] argsort(long[] keys) {
+        int n = keys.length;
+        long[] k = keys.clone();
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+        sortByKey(k, idx);
+        return idx;
+    }
+
+    /** Below this many elements a parallel sort task just radix-sorts its range. */
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 17;
+
+    /**
+     * Fork-join sort for large int[]: halves are sorted in parallel (radix sort at the leaves)
+     * and merged through the one shared scratch buffer.
+     */
+    static void parallelSort(int[] a) {
+        parallelSort(a, new int[a.length]);
+    }
+
+    static void parallelSort(int[] a, int[] scratch) {
+        ForkJoinPool.commonPool().invoke(new ParallelSortTask(a, scratch, 0, a.length));
+    }
+
+    private static class ParallelSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int[] a, scratch;
+        final int lo, hi;
+
+        ParallelSortTask(int[] a, int[] scratch, int lo, int hi) {
+            this.a = a; this.scratch = scratch; this.lo = lo; this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_SORT_THRESHOLD) {
+                radixSort(a, lo, hi, scratch);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ParallelSortTask(a, scratch, lo, mid), new ParallelSortTask(a, scratch, mid, hi));
+            mergeRuns(a, lo, mid, hi, scratch);
+            System.arraycopy(scratch, lo, a, lo, hi - lo);
+        }
+    }
+
+
+    // ─────────────────────────────────────────────────────
+    // RANGE QUERIES
+    // ─────────────────────────────────────────────────────
+    // Updatable alternatives to prefixSums/rangeSum, all on flat long[]/int[] arrays.
+    // Ranges are inclusive, arr[l..r], like rangeSum.
+
+    /**
+     * Fenwick (binary indexed) tree over long sums: point add, prefix/range sum and
+     * lowerBound, each O(log n). Built from an array in O(n).
+     */
+    static class FenwickTree {
+        final int n;
+        private final long[] tree;      // 1-based
+
+        FenwickTree(int n) {
+            this.n = n;
+            tree = new long[n + 1];
+        }
+
+        FenwickTree(long[] arr) {
+            this(arr.length);
+            for (int i = 1; i <= n; i++) {
+                tree[i] += arr[i - 1];
+                int j = i + (i & -i);
+                if (j <= n) tree[j] += tree[i];
+            }
+        }
+
+        static FenwickTree of(int[] arr) {
+            long[] a = new long[arr.length];
+            for (int i = 0; i < a.length; i++) a[i] = arr[i];
+            return new FenwickTree(a);
+        }
+
+        void add(int i, long delta) {
+            for (i++; i <= n; i += i & -i) tree[i] += delta;
+        }
+
+        void set(int i, long value) {
+            add(i, value - get(i));
+        }
+
+        long get(int i) {
+            return rangeSum(i, i);
+        }
+
+        /** arr[0] + ... + arr[i]; i = -1 gives 0. */
+        long prefixSum(int i) {
+            long s = 0;
+            for (i++; i > 0; i -= i & -i) s += tree[i];
+            return s;
+        }
+
+        long rangeSum(int l, int r) {
+            return prefixSum(r) - prefixSum(l - 1);
+        }
+
+        /**
+         * Smallest i with prefixSum(i) >= target, or n if there is none.
+         * Needs all elements non-negative (prefix sums non-decreasing).
+         */
+        int lowerBound(long target) {
+            if (target <= 0) return 0;
+            int pos = 0;
+            for (int step = Integer.highestOneBit(Math.max(n, 1)); step > 0; step >>= 1) {
+                int next = pos + step;
+                if (next <= n && tree[next] < target) {
+                    pos = next;
+                    target -= tree[next];
+                }
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * Aggregate used by LazySegTree. All methods take and return raw longs, so nothing boxes.
+     * added/repeated let range add and range assign update a node's aggregate without
+     * visiting its len elements.
+     */
+    interface RangeMonoid {
+        long identity();
+
+        long combine(long a, long b);
+
+        /** Aggregate of len elements after delta was added to each, given their old aggregate. */
+        long added(long agg, long delta, int len);
+
+        /** Aggregate of len elements that all equal v. */
+        long repeated(long v, int len);
+    }
+
+    static final RangeMonoid SUM = new RangeMonoid() {
+        public long identity() { return 0; }
+        public long combine(long a, long b) { return a + b; }
+        public long added(long agg, long delta, int len) { return agg + delta * len; }
+        public long repeated(long v, int len) { return v * len; }
+    };
+
+    static final RangeMonoid MIN = new RangeMonoid() {
+        public long identity() { return Long.MAX_VALUE; }
+        public long combine(long a, long b) { return Math.min(a, b); }
+        public long added(long agg, long delta, int len) { return agg + delta; }
+        public long repeated(long v, int len) { return v; }
+    };
+
+    static final RangeMonoid MAX = new RangeMonoid() {
+        public long identity() { return Long.MIN_VALUE; }
+        public long combine(long a, long b) { return Math.max(a, b); }
+        public long added(long agg, long delta, int len) { return agg + delta; }
+        public long repeated(long v, int len) { return v; }
+    };
+
+    /**
+     * Iterative (bottom-up) segment tree with lazy range add and range assign, aggregating
+     * with any RangeMonoid (SUM, MIN, MAX or your own). query/add/assign are O(log n) and
+     * never recurse. A pending tag is one long plus an "assign" flag: an assign absorbs
+     * later adds into its value, so tags compose without a second array.
+     */
+    static class LazySegTree {
+        final int n;
+        private final int size, log;
+        private final RangeMonoid m;
+        private final long[] d, lz;
+        private final boolean[] lzSet;
+
+        /** n elements, all 0. */
+        LazySegTree(int n, RangeMonoid m) {
+            this(new long[n], m);
+        }
+
+        LazySegTree(long[] arr, RangeMonoid m) {
+            this.n = arr.length;
+            this.m = m;
+            int lg = 0;
+            while ((1 << lg) < Math.max(n, 1)) lg++;
+            log = lg;
+            size = 1 << lg;
+            d = new long[2 * size];
+            lz = new long[size];
+            lzSet = new boolean[size];
+            Arrays.fill(d, size, 2 * size, m.identity());
+            System.arraycopy(arr, 0, d, size, n);
+            for (int k = size - 1; k >= 1; k--) pull(k);
+        }
+
+        long get(int i) {
+            return query(i, i);
+        }
+
+        void set(int i, long v) {
+            assign(i, i, v);
+        }
+
+        /** Aggregate of arr[l..r]. */
+        long query(int l, int r) {
+            if (l > r) return m.identity();
+            l += size;
+            r += size + 1;
+            pushDown(l, r);
+            long left = m.identity(), right = m.identity();
+            while (l < r) {
+                if ((l & 1) != 0) left = m.combine(left, d[l++]);
+                if ((r & 1) != 0) right = m.combine(d[--r], right);
+                l >>= 1;
+                r >>= 1;
+            }
+            return m.combine(left, right);
+        }
+
+        /** Adds delta to every arr[l..r]. */
+        void add(int l, int r, long delta) {
+            update(l, r, false, delta);
+        }
+
+        /** Sets every arr[l..r] to v. */
+        void assign(int l, int r, long v) {
+            update(l, r, true, v);
+        }
+
+        private void update(int l, int r, boolean assign, long v) {
+            if (l > r) return;
+            l += size;
+            r += size + 1;
+            pushDown(l, r);
+            for (int a = l, b = r, h = 0; a < b; a >>= 1, b >>= 1, h++) {
+                if ((a & 1) != 0) applyTag(a++, assign, v, 1 << h);
+                if ((b & 1) != 0) applyTag(--b, assign, v, 1 << h);
+            }
+            for (int i = 1; i <= log; i++) {
+                if (((l >> i) << i) != l) pull(l >> i);
+                if (((r >> i) << i) != r) pull((r - 1) >> i);
+            }
+        }
+
+        /** Pushes pending tags on the paths above the half-open leaf range [l, r). */
+        private void pushDown(int l, int r) {
+            for (int i = log; i >= 1; i--) {
+                if (((l >> i) << i) != l) push(l >> i, i);
+                if (((r >> i) << i) != r) push((r - 1) >> i, i);
+            }
+        }
+
+        private void pull(int k) {
+            d[k] = m.combine(d[2 * k], d[2 * k + 1]);
+        }
+
+        /** Applies a tag to node k covering len leaves. */
+        private void applyTag(int k, boolean assign, long v, int len) {
+            d[k] = assign ? m.repeated(v, len) : m.added(d[k], v, len);
+            if (k < size) {
+                if (assign) {
+                    lzSet[k] = true;
+                    lz[k] = v;
+                } else lz[k] += v;
+            }
+        }
+
+        /** Moves node k's tag (k at height h) to its children. */
+        private void push(int k, int h) {
+            if (!lzSet[k] && lz[k] == 0) return;
+            int len = 1 << (h - 1);
+            applyTag(2 * k, lzSet[k], lz[k], len);
+            applyTag(2 * k + 1, lzSet[k], lz[k], len);
+            lzSet[k] = false;
+            lz[k] = 0;
+        }
+    }
+
+    /**
+     * Sparse table for static range min or max: O(n log n) build into one flat int[],
+     * O(1) query from two overlapping power-of-two windows.
+     */
+    static class SparseTable {
+        final int n;
+        private final boolean max;
+        private final int[] t;          // level j occupies t[j*n .. j*n + n - 2^j]
+
+        SparseTable(int[] arr, boolean max) {
+            n = arr.length;
+            this.max = max;
+            int levels = 32 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+            t = new int[levels * n];
+            System.arraycopy(arr, 0, t, 0, n);
+            for (int j = 1; j < levels; j++) {
+                int half = 1 << (j - 1), prev = (j - 1) * n, cur = j * n;
+                for (int i = 0; i + (1 << j) <= n; i++) {
+                    int a = t[prev + i], b = t[prev + i + half];
+                    t[cur + i] = max ? Math.max(a, b) : Math.min(a, b);
+                }
+            }
+        }
+
+        /** Min (or max) of arr[l..r]. */
+        int query(int l, int r) {
+            int j = 31 - Integer.numberOfLeadingZeros(r - l + 1);
+            int a = t[j * n + l], b = t[j * n + r - (1 << j) + 1];
+            return max ? Math.max(a, b) : Math.min(a, b);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────
+    // PRIMITIVE MAPS & COUNTERS
+    // ─────────────────────────────────────────────────────
+
+    /**
+     * int -> int hash map: open addressing, linear probing, no boxing, load factor <= 1/2.
+     * clear() keeps the table, so a reused map allocates nothing once it has grown.
+     * Iterate with: for (int s = 0; s < m.capacity(); s++) if (m.used(s)) ... m.keyAt(s), m.valueAt(s)
+     */
+    static class IntIntMap {
+        private int[] keys, vals;
+        private boolean[] used;
+        private int size, shift;
+
+        IntIntMap() {
+            this(8);
+        }
+
+        IntIntMap(int expected) {
+            alloc(Math.max(16, Integer.highestOneBit(Math.max(1, expected) * 2 - 1) << 1));
+        }
+
+        private void alloc(int cap) {
+            keys = new int[cap];
+            vals = new int[cap];
+            used = new boolean[cap];
+            shift = 32 - Integer.numberOfTrailingZeros(cap);
+        }
+
+        /** Slot holding key, or the empty slot where it would go. */
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int s = (key * 0x9E3779B9) >>> shift;        // Fibonacci hashing
+            while (used[s] && keys[s] != key) s = (s + 1) & mask;
+            return s;
+        }
+
+        int get(int key, int def) {
+            int s = slot(key);
+            return used[s] ? vals[s] : def;
+        }
+
+        boolean containsKey(int key) {
+            return used[slot(key)];
+        }
+
+        void put(int key, int val) {
+            int s = slot(key);
+            if (!used[s]) s = insert(key, s);
+            vals[s] = val;
+        }
+
+        /** map[key] += delta (missing counts as 0); returns the new value. */
+        int addTo(int key, int delta) {
+            int s = slot(key);
+            if (!used[s]) s = insert(key, s);
+            return vals[s] += delta;
+        }
+
+        private int insert(int key, int s) {
+            if (2 * (size + 1) > keys.length) {
+                int[] ok = keys, ov = vals;
+                boolean[] ou = used;
+                alloc(keys.length * 2);
+                for (int i = 0; i < ok.length; i++) {
+                    if (!ou[i]) continue;
+                    int t = slot(ok[i]);
+                    used[t] = true; keys[t] = ok[i]; vals[t] = ov[i];
+                }
+                s = slot(key);
+            }
+            used[s] = true;
+            keys[s] = key;
+            vals[s] = 0;
+            size++;
+            return s;
+        }
+
+        int size() { return size; }
+        int capacity() { return keys.length; }
+        boolean used(int slot) { return used[slot]; }
+        int keyAt(int slot) { return keys[slot]; }
+        int valueAt(int slot) { return vals[slot]; }
+
+        void clear() {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+
+    /** long -> int version of IntIntMap (same probing, same iteration pattern). */
+    static class LongIntMap {
+        private long[] keys;
+        private int[] vals;
+        private boolean[] used;
+        private int size, shift;
+
+        LongIntMap() {
+            this(8);
+        }
+
+        LongIntMap(int expected) {
+            alloc(Math.max(16, Integer.highestOneBit(Math.max(1, expected) * 2 - 1) << 1));
+        }
+
+        private void alloc(int cap) {
+            keys = new long[cap];
+            vals = new int[cap];
+            used = new boolean[cap];
+            shift = 64 - Integer.numberOfTrailingZeros(cap);
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int s = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+            while (used[s] && keys[s] != key) s = (s + 1) & mask;
+            return s;
+        }
+
+        int get(long key, int def) {
+            int s = slot(key);
+            return used[s] ? vals[s] : def;
+        }
+
+        boolean containsKey(long key) {
+            return used[slot(key)];
+        }
+
+        void put(long key, int val) {
+            int s = slot(key);
+            if (!used[s]) s = insert(key, s);
+            vals[s] = val;
+        }
+
+        int addTo(long key, int delta) {
+            int s = slot(key);
+            if (!used[s]) s = insert(key, s);
+            return vals[s] += delta;
+        }
+
+        private int insert(long key, int s) {
+            if (2 * (size + 1) > keys.length) {
+                long[] ok = keys;
+                int[] ov = vals;
+                boolean[] ou = used;
+                alloc(keys.length * 2);
+                for (int i = 0; i < ok.length; i++) {
+                    if (!ou[i]) continue;
+                    int t = slot(ok[i]);
+                    used[t] = true; keys[t] = ok[i]; vals[t] = ov[i];
+                }
+                s = slot(key);
+            }
+            used[s] = true;
+            keys[s] = key;
+            vals[s] = 0;
+            size++;
+            return s;
+        }
+
+        int size() { return size; }
+        int capacity() { return keys.length; }
+        boolean used(int slot) { return used[slot]; }
+        long keyAt(int slot) { return keys[slot]; }
+        int valueAt(int slot) { return vals[slot]; }
+
+        void clear() {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+
+    /** Largest value range counted with a dense int[] (64 MB of counts). */
+    static final int DENSE_COUNT_LIMIT = 1 << 24;
+
+    /**
+     * Counts ints, picking the representation: a dense int[] over [min, max] when the
+     * range is small (at most DENSE_COUNT_LIMIT and not much bigger than the input), else
+     * an IntIntMap. A value outside the dense range later moves it over to the map.
+     */
+    static class IntCounter {
+        private int[] dense;
+        private int min;
+        private IntIntMap sparse;
+        private int distinct;
+
+        /** Counter sized for the values in arr, with arr already counted. */
+        static IntCounter of(int[] arr) {
+            IntCounter c = new IntCounter();
+            if (arr.length > 0) {
+                int lo = arr[0], hi = arr[0];
+                for (int x : arr) { lo = Math.min(lo, x); hi = Math.max(hi, x); }
+                long range = (long) hi - lo + 1;
+                if (range <= DENSE_COUNT_LIMIT && range <= 4L * arr.length + 1024) {
+                    c.dense = new int[(int) range];
+                    c.min = lo;
+                } else c.sparse = new IntIntMap(arr.length);
+            }
+            c.addAll(arr);
+            return c;
+        }
+
+        /** Counter with a dense table over [lo, hi]. */
+        static IntCounter dense(int lo, int hi) {
+            IntCounter c = new IntCounter();
+            c.dense = new int[hi - lo + 1];
+            c.min = lo;
+            return c;
+        }
+
+        void add(int x) {
+            if (dense != null) {
+                int i = x - min;
+                if (i >= 0 && i < dense.length) {
+                    if (dense[i]++ == 0) distinct++;
+                    return;
+                }
+                toSparse();
+            }
+            if (sparse == null) sparse = new IntIntMap();
+            if (sparse.addTo(x, 1) == 1) distinct++;
+        }
+
+        void addAll(int[] arr) {
+            for (int x : arr) add(x);
+        }
+
+        private void toSparse() {
+            sparse = new IntIntMap(distinct);
+            for (int i = 0; i < dense.length; i++)
+                if (dense[i] != 0) sparse.put(min + i, dense[i]);
+            dense = null;
+        }
+
+        int get(int x) {
+            if (dense != null) {
+                int i = x - min;
+                return i >= 0 && i < dense.length ? dense[i] : 0;
+            }
+            return sparse == null ? 0 : sparse.get(x, 0);
+        }
+
+        int distinct() {
+            return distinct;
+        }
+
+        /** Resets every count but keeps the storage. */
+        void clear() {
+            if (dense != null) Arrays.fill(dense, 0);
+            if (sparse != null) sparse.clear();
+            distinct = 0;
+        }
+    }
+
+    /**
+     * Character counts indexed by the char itself: length 128 when s is all ASCII,
+     * else 65536. No boxing, one allocation.
+     */
+    static int[] charCounts(CharSequence s) {
+        int n = s.length();
+        boolean ascii = true;
+        for (int i = 0; i < n && ascii; i++) ascii = s.charAt(i) < 128;
+        int[] counts = new int[ascii ? 128 : 65536];
+        for (int i = 0; i < n; i++) counts[s.charAt(i)]++;
+        return counts;
+    }
+
+
+    // ─────────────────────────────────────────────────────
+    // GRAPH HELPERS
+    // ─────────────────────────────────────────────────────
+
+    /** BFS — returns distance map from start node. */
+    static Map<Integer, Integer> bfs(Map<Integer, List<Integer>> graph, int start) {
+        Map<Integer, Integer> dist = new HashMap<>();
+        Queue<Integer> q = new LinkedList<>();
+        dist.put(start, 0);
+        q.add(start);
+        while (!q.isEmpty()) {
+            int node = q.poll();
+            for (int nb : graph.getOrDefault(node, Collections.emptyList())) {
+                if (!dist.containsKey(nb)) {
+                    dist.put(nb, dist.get(node) + 1);
+                    q.add(nb);
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** DFS — returns visited order list. */
+    static List<Integer> dfs(Map<Integer, List<Integer>> graph, int start) {
+        Set<Integer> visited = new HashSet<>();
+        List<Integer> order = new ArrayList<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            if (!visited.contains(node)) {
+                visited.add(node);
+                order.add(node);
+                for (int nb : graph.getOrDefault(node, Collections.emptyList()))
+                    if (!visited.contains(nb)) stack.push(nb);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Dijkstra's shortest path from src.
+     * graph: adjacency list of {neighbor, weight} pairs.
+     * Returns dist[] array.
+     */
+    static int[] dijkstra(List<int[]>[] graph, int src, int V) {
+        int[] dist = new int[V];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[src] = 0;
+        PriorityQueue<int[]> pq = new PriorityQueue<>(Comparator.comparingInt(a -> a[0]));
+        pq.offer(new int[]{0, src});
+        while (!pq.isEmpty()) {
+            int[] cur = pq.poll();
+            int d = cur[0], u = cur[1];
+            if (d > dist[u]) continue;
+            for (int[] edge : graph[u]) {
+                int v = edge[0], w = edge[1];
+                if (dist[u] + w < dist[v]) {
+                    dist[v] = dist[u] + w;
+                    pq.offer(new int[]{dist[v], v});
+                }
+            }
+        }
+        return dist;
+    }
+
+    // ── CSR graphs ──────────────────────────────────────
+    // Vertices are 0..n-1. The edges of u are targets[offsets[u] .. offsets[u+1]),
+    // with weights in the same slots when the graph is weighted.
+
+    /** Compressed-sparse-row graph: three flat int[]s, no per-vertex objects. */
+    static class CsrGraph {
+        final int n;
+        final int[] offsets, targets, weights;      // weights == null when unweighted
+
+        CsrGraph(int n, int[] offsets, int[] targets, int[] weights) {
+            this.n = n;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        /**
+         * Builds from the edge list from[i] -> to[i] (weight w[i]; w may be null), first m
+         * entries, by a counting sort on the source: O(n + m). undirected adds both directions.
+         * Edges of each vertex keep their input order.
+         */
+        static CsrGraph fromEdges(int n, int m, int[] from, int[] to, int[] w, boolean undirected) {
+            int[] off = new int[n + 1];
+            for (int i = 0; i < m; i++) {
+                off[from[i] + 1]++;
+                if (undirected) off[to[i] + 1]++;
+            }
+            for (int u = 0; u < n; u++) off[u + 1] += off[u];
+            int total = off[n];
+            int[] tgt = new int[total], wt = w == null ? null : new int[total], pos = Arrays.copyOf(off, n);
+            for (int i = 0; i < m; i++) {
+                int p = pos[from[i]]++;
+                tgt[p] = to[i];
+                if (wt != null) wt[p] = w[i];
+                if (undirected) {
+                    p = pos[to[i]]++;
+                    tgt[p] = from[i];
+                    if (wt != null) wt[p] = w[i];
+                }
+            }
+            return new CsrGraph(n, off, tgt, wt);
+        }
+
+        static CsrGraph fromEdges(int n, int[] from, int[] to, int[] w, boolean undirected) {
+            return fromEdges(n, from.length, from, to, w, undirected);
+        }
+
+        /**
+         * Adapter from the map-of-lists form used by bfs/dfs. Node ids must be non-negative;
+         * n is one past the largest id seen.
+         */
+        static CsrGraph fromMap(Map<Integer, List<Integer>> graph) {
+            Builder b = new Builder();
+            for (Map.Entry<Integer, List<Integer>> e : graph.entrySet())
+                for (int v : e.getValue()) b.addEdge(e.getKey(), v);
+            for (int u : graph.keySet()) b.touch(u);
+            return b.build();
+        }
+
+        /** The edges reversed (same weights). */
+        CsrGraph transpose() {
+            int m = targets.length;
+            int[] from = new int[m];
+            for (int u = 0; u < n; u++)
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) from[e] = u;
+            return fromEdges(n, m, targets, from, weights, false);
+        }
+
+        int degree(int u) {
+            return offsets[u + 1] - offsets[u];
+        }
+
+        int edgeCount() {
+            return targets.length;
+        }
+
+        /** Collects edges in growable int[]s; build() sizes n to the largest id + 1 unless set. */
+        static class Builder {
+            private int[] from = new int[16], to = new int[16], w;
+            private int m, n;
+
+            Builder() {
+            }
+
+            Builder(int n) {
+                this.n = n;
+            }
+
+            Builder addEdge(int u, int v) {
+                if (w != null) throw new IllegalArgumentException("unweighted edge in a weighted graph");
+                return add(u, v, 0);
+            }
+
+            Builder addEdge(int u, int v, int weight) {
+                if (w == null) {
+                    if (m > 0) throw new IllegalArgumentException("weighted edge in an unweighted graph");
+                    w = new int[from.length];
+                }
+                return add(u, v, weight);
+            }
+
+            Builder addUndirected(int u, int v) {
+                return addEdge(u, v).addEdge(v, u);
+            }
+
+            Builder addUndirected(int u, int v, int weight) {
+                return addEdge(u, v, weight).addEdge(v, u, weight);
+            }
+
+            private Builder add(int u, int v, int weight) {
+                if (u < 0 || v < 0) throw new IllegalArgumentException("negative vertex id: " + u + " -> " + v);
+                if (m == from.length) {
+                    from = Arrays.copyOf(from, m * 2);
+                    to = Arrays.copyOf(to, m * 2);
+                    if (w != null) w = Arrays.copyOf(w, m * 2);
+                }
+                from[m] = u;
+                to[m] = v;
+                if (w != null) w[m] = weight;
+                m++;
+                touch(Math.max(u, v));
+                return this;
+            }
+
+            /** Makes sure vertex u exists even without edges. */
+            Builder touch(int u) {
+                n = Math.max(n, u + 1);
+                return this;
+            }
+
+            CsrGraph build() {
+                return fromEdges(n, m, from, to, w, false);
+            }
+        }
+    }
+
+    /**
+     * Growable int ring buffer usable as queue, stack or deque; capacity stays a power of
+     * two so wrap-around is a mask. clear() keeps the storage.
+     */
+    static class IntDeque {
+        private int[] buf;
+        private int head, size;
+
+        IntDeque() {
+            this(16);
+        }
+
+        IntDeque(int expected) {
+            buf = new int[Integer.highestOneBit(Math.max(expected, 2) - 1) << 1];
+        }
+
+        void addLast(int x) {
+            if (size == buf.length) grow();
+            buf[(head + size++) & (buf.length - 1)] = x;
+        }
+
+        void addFirst(int x) {
+            if (size == buf.length) grow();
+            head = (head - 1) & (buf.length - 1);
+            buf[head] = x;
+            size++;
+        }
+
+        int pollFirst() {
+            int x = buf[head];
+            head = (head + 1) & (buf.length - 1);
+            size--;
+            return x;
+        }
+
+        int pollLast() {
+            return buf[(head + --size) & (buf.length - 1)];
+        }
+
+        int peekFirst() {
+            return buf[head];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            head = size = 0;
+        }
+
+        private void grow() {
+            int[] nb = new int[buf.length * 2];
+            int first = Math.min(size, buf.length - head);
+            System.arraycopy(buf, head, nb, 0, first);
+            System.arraycopy(buf, 0, nb, first, size - first);
+            buf = nb;
+            head = 0;
+        }
+    }
+
+    /** BFS on a CSR graph: dist[v] in edges, -1 if unreachable. */
+    static int[] bfs(CsrGraph g, int src) {
+        int[] dist = new int[g.n];
+        bfs(g, src, dist, null, new int[g.n]);
+        return dist;
+    }
+
+    /**
+     * BFS into caller-owned arrays, so repeated traversals allocate nothing. parent may be
+     * null; parent[src] = -1. Every vertex enters the queue at most once, so the ring never
+     * wraps and queue is a plain int[n] with head/tail cursors; on return queue[0..count)
+     * holds the reached vertices in BFS order. Returns that count.
+     */
+    static int bfs(CsrGraph g, int src, int[] dist, int[] parent, int[] queue) {
+        int[] off = g.offsets, tgt = g.targets;
+        Arrays.fill(dist, 0, g.n, -1);
+        dist[src] = 0;
+        if (parent != null) parent[src] = -1;
+        int head = 0, tail = 0;
+        queue[tail++] = src;
+        while (head < tail) {
+            int u = queue[head++], du = dist[u] + 1;
+            for (int e = off[u], end = off[u + 1]; e < end; e++) {
+                int v = tgt[e];
+                if (dist[v] < 0) {
+                    dist[v] = du;
+                    if (parent != null) parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /** DFS preorder from src on a CSR graph (true recursive order, neighbours in edge order). */
+    static int[] dfs(CsrGraph g, int src) {
+        int n = g.n;
+        int[] order = new int[n];
+        int count = dfs(g, src, new boolean[n], null, order, 0, new int[n], new int[n]);
+        return Arrays.copyOf(order, count);
+    }
+
+    /**
+     * DFS preorder of every vertex: a DFS from each vertex not yet reached, in id order.
+     * parent (may be null) gets -1 at each tree root. All scratch is allocated once, so the
+     * whole forest costs O(n + m).
+     */
+    static int[] dfsAll(CsrGraph g, int[] parent) {
+        int n = g.n;
+        int[] order = new int[n], stack = new int[n], cursor = new int[n];
+        boolean[] visited = new boolean[n];
+        for (int v = 0, count = 0; v < n; v++)
+            if (!visited[v]) count = dfs(g, v, visited, parent, order, count, stack, cursor);
+        return order;
+    }
+
+    /**
+     * Iterative DFS with an explicit int[] stack of vertices and per-level edge cursors, so
+     * deep graphs can't overflow the call stack. Skips vertices already marked in visited;
+     * parent may be null. Appends the preorder to order starting at count and returns the
+     * new count. stack and cursor are caller-owned scratch with room for g.n entries, so a
+     * loop over many sources (see dfsAll) allocates nothing per call.
+     */
+    static int dfs(CsrGraph g, int src, boolean[] visited, int[] parent, int[] order, int count,
+                   int[] stack, int[] cursor) {
+        if (visited[src]) return count;
+        int[] off = g.offsets, tgt = g.targets;
+        int sp = 0;
+        visited[src] = true;
+        if (parent != null) parent[src] = -1;
+        order[count++] = src;
+        stack[sp] = src;
+        cursor[sp++] = off[src];
+        while (sp > 0) {
+            int u = stack[sp - 1], e = cursor[sp - 1];
+            if (e == off[u + 1]) {
+                sp--;
+                continue;
+            }
+            cursor[sp - 1] = e + 1;
+            int v = tgt[e];
+            if (!visited[v]) {
+                visited[v] = true;
+                if (parent != null) parent[v] = u;
+                order[count++] = v;
+                stack[sp] = v;
+                cursor[sp++] = off[v];
+            }
+        }
+        return count;
+    }
+
+    // ── Shortest paths on CSR ───────────────────────────
+    // Distances are long; INF marks unreachable vertices, parent[src] = -1.
+
+    static final long INF = Long.MAX_VALUE;
+
+    /**
+     * Indexed 4-ary min-heap of vertex ids keyed by an external long[] (Dijkstra's dist),
+     * with decrease-key: each vertex is in the heap at most once, so it never grows past n.
+     * pos[v] is v's slot, -1 when absent. A 4-ary tree is half as deep as a binary one and
+     * the four children share a cache line.
+     */
+    static class IndexedHeap {
+        private final long[] key;
+        private final int[] heap, pos;
+        private int size;
+
+        IndexedHeap(long[] key) {
+            this.key = key;
+            heap = new int[key.length];
+            pos = new int[key.length];
+            Arrays.fill(pos, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int v) {
+            return pos[v] >= 0;
+        }
+
+        /** Inserts v, or moves it up after key[v] decreased. */
+        void offer(int v) {
+            int i = pos[v];
+            if (i < 0) {
+                i = size++;
+                pos[v] = i;
+                heap[i] = v;
+            }
+            siftUp(i);
+        }
+
+        /** Vertex with the smallest key, left in place. */
+        int peek() {
+            return heap[0];
+        }
+
+        int poll() {
+            int top = heap[0], last = heap[--size];
+            pos[top] = -1;
+            if (size > 0) {
+                heap[0] = last;
+                pos[last] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        /** Empties the heap in O(size), ready for the next search. */
+        void clear() {
+            for (int i = 0; i < size; i++) pos[heap[i]] = -1;
+            size = 0;
+        }
+
+        private void siftUp(int i) {
+            int v = heap[i];
+            long k = key[v];
+            while (i > 0) {
+                int p = (i - 1) >>> 2, pv = heap[p];
+                if (key[pv] <= k) break;
+                heap[i] = pv;
+                pos[pv] = i;
+                i = p;
+            }
+            heap[i] = v;
+            pos[v] = i;
+        }
+
+        private void siftDown(int i) {
+            int v = heap[i];
+            long k = key[v];
+            while (true) {
+                int c = 4 * i + 1;
+                if (c >= size) break;
+                int best = c;
+                long bk = key[heap[c]];
+                for (int j = c + 1, end = Math.min(c + 4, size); j < end; j++) {
+                    long jk = key[heap[j]];
+                    if (jk < bk) {
+                        best = j;
+                        bk = jk;
+                    }
+                }
+                if (bk >= k) break;
+                heap[i] = heap[best];
+                pos[heap[i]] = i;
+                i = best;
+            }
+            heap[i] = v;
+            pos[v] = i;
+        }
+    }
+
+    /** Dijkstra from src on a weighted CSR graph (non-negative weights). */
+    static long[] dijkstra(CsrGraph g, int src) {
+        long[] dist = new long[g.n];
+        dijkstra(g, src, -1, dist, null, new IndexedHeap(dist));
+        return dist;
+    }
+
+    /**
+     * Dijkstra into caller-owned arrays. heap must be built over dist. Stops as soon as
+     * target is settled (pass -1 for the full tree); vertices not settled by then keep
+     * tentative or INF distances. parent may be null. Returns the number of settled vertices.
+     */
+    static int dijkstra(CsrGraph g, int src, int target, long[] dist, int[] parent, IndexedHeap heap) {
+        int[] off = g.offsets, tgt = g.targets, w = g.weights;
+        Arrays.fill(dist, 0, g.n, INF);
+        heap.clear();
+        dist[src] = 0;
+        if (parent != null) parent[src] = -1;
+        heap.offer(src);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            settled++;
+            if (u == target) break;
+            long du = dist[u];
+            for (int e = off[u], end = off[u + 1]; e < end; e++) {
+                int v = tgt[e];
+                long nd = du + w[e];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    if (parent != null) parent[v] = u;
+                    heap.offer(v);
+                }
+            }
+        }
+        return settled;
+    }
+
+    /** Vertices src..t along parent links, or an empty array if t was not reached. */
+    static int[] path(int[] parent, long[] dist, int t) {
+        if (dist[t] == INF) return new int[0];
+        int len = 0;
+        for (int v = t; v != -1; v = parent[v]) len++;
+        int[] res = new int[len];
+        for (int v = t; v != -1; v = parent[v]) res[--len] = v;
+        return res;
+    }
+
+    /** 0-1 BFS: shortest paths when every weight is 0 or 1, O(n + m) with an IntDeque. */
+    static long[] zeroOneBfs(CsrGraph g, int src) {
+        long[] dist = new long[g.n];
+        zeroOneBfs(g, src, dist, null);
+        return dist;
+    }
+
+    static void zeroOneBfs(CsrGraph g, int src, long[] dist, int[] parent) {
+        int[] off = g.offsets, tgt = g.targets, w = g.weights;
+        Arrays.fill(dist, 0, g.n, INF);
+        dist[src] = 0;
+        if (parent != null) parent[src] = -1;
+        IntDeque dq = new IntDeque(g.n);
+        dq.addLast(src);
+        while (!dq.isEmpty()) {
+            int u = dq.pollFirst();
+            long du = dist[u];
+            for (int e = off[u], end = off[u + 1]; e < end; e++) {
+                int v = tgt[e], we = w[e];
+                if ((we & ~1) != 0) throw new IllegalArgumentException("0-1 BFS needs weights 0 or 1, got " + we);
+                if (du + we < dist[v]) {
+                    dist[v] = du + we;
+                    if (parent != null) parent[v] = u;
+                    if (we == 0) dq.addFirst(v);
+                    else dq.addLast(v);
+                }
+            }
+        }
+    }
+
+    /** Dial's algorithm: Dijkstra with a bucket queue, for small integer weights in [0, C]. */
+    static long[] dial(CsrGraph g, int src) {
+        long[] dist = new long[g.n];
+        dial(g, src, dist, null);
+        return dist;
+    }
+
+    /**
+     * Buckets are C + 1 IntDeques used circularly: every tentative distance lies within C of
+     * the current one. Stale entries are skipped on pop. O(m + n C) time, no heap.
+     */
+    static void dial(CsrGraph g, int src, long[] dist, int[] parent) {
+        int[] off = g.offsets, tgt = g.targets, w = g.weights;
+        int maxW = 0;
+        for (int we : w) {
+            if (we < 0) throw new IllegalArgumentException("negative weight " + we);
+            maxW = Math.max(maxW, we);
+        }
+        int nb = maxW + 1;
+        IntDeque[] buckets = new IntDeque[nb];
+        for (int i = 0; i < nb; i++) buckets[i] = new IntDeque();
+        Arrays.fill(dist, 0, g.n, INF);
+        dist[src] = 0;
+        if (parent != null) parent[src] = -1;
+        buckets[0].addLast(src);
+        long pending = 1;
+        for (long d = 0; pending > 0; d++) {
+            IntDeque b = buckets[(int) (d % nb)];
+            while (!b.isEmpty()) {
+                int u = b.pollFirst();
+                pending--;
+                if (dist[u] != d) continue;
+                for (int e = off[u], end = off[u + 1]; e < end; e++) {
+                    int v = tgt[e];
+                    long nd = d + w[e];
+                    if (nd < dist[v]) {
+                        dist[v] = nd;
+                        if (parent != null) parent[v] = u;
+                        buckets[(int) (nd % nb)].addLast(v);
+                        pending++;
+                    }
+                }
+            }
+        }
     }
 
-    /** Decimal to any base (2–16) string. */
-    static String decimalToBase(int n, int base) {
-        return Integer.toString(n, base).toUpperCase();
-    }
+    /**
+     * Point-to-point shortest-path queries against one fixed weighted CsrGraph.
+     * distance(s, t) uses, in order of preference:
+     * - a cached source tree of s, read in O(1);
+     * - A* with ALT landmark potentials, once prepareLandmarks(k) has run;
+     * - bidirectional Dijkstra.
+     * Source trees live in an LRU cache capped at cacheBytes. distance() fills it by itself:
+     * once a source has missed the cache treeAfter times (default 4, see cacheTreesAfter),
+     * the query computes and caches the full tree of s, and later queries from s are O(1).
+     * tree(s) does the same on demand, e.g. before a batch from one source. Per-query scratch is reset only where a search touched it, so a short
+     * query costs nothing in O(n). lastSettled() reports how many vertices the last query
+     * settled (both directions combined), the measure of pruning.
+     * Not thread-safe: use one engine per thread.
+     */
+    static class PathQueryEngine {
+        final CsrGraph g, reverse;
+        private final int n;
+        private final long[] distF, distB, keyF;
+        private final IndexedHeap heapF, heapB, heapA;
+        private final int[] touched;
+        private int touchedCount;
+        private long[][] fromLandmark, toLandmark;
 
-    /** Any base string to decimal. */
-    static int baseToDecimal(String s, int base) {
-        return Integer.parseInt(s, base);
-    }
+        private final long cacheBytes;
+        private long cachedBytes;
+        private final LinkedHashMap<Integer, long[]> trees = new LinkedHashMap<>(16, 0.75f, true);
+        private final IntIntMap misses = new IntIntMap();     // cache misses per source
+        private int treeAfter = 4;
 
+        private int lastSettled;
+        private long queries, cacheHits, totalSettled;
 
-    // ─────────────────────────────────────────────────────
-    // ARRAY UTILITIES
-    // ─────────────────────────────────────────────────────
+        /** reverse may be g itself for an undirected graph. */
+        PathQueryEngine(CsrGraph g, CsrGraph reverse, long cacheBytes) {
+            if (g.weights == null) throw new IllegalArgumentException("PathQueryEngine needs a weighted graph");
+            this.g = g;
+            this.reverse = reverse;
+            this.cacheBytes = cacheBytes;
+            n = g.n;
+            distF = new long[n];
+            distB = new long[n];
+            keyF = new long[n];
+            Arrays.fill(distF, INF);
+            Arrays.fill(distB, INF);
+            heapF = new IndexedHeap(distF);
+            heapB = new IndexedHeap(distB);
+            heapA = new IndexedHeap(keyF);
+            touched = new int[n];
+        }
 
-    /** Binary search on sorted array. Returns index or -1. */
-    static int binarySearch(int[] arr, int target) {
-        int lo = 0, hi = arr.length - 1;
-        while (lo <= hi) {
-            int mid = lo + (hi - lo) / 2;
-            if (arr[mid] == target) return mid;
-            if (arr[mid] < target) lo = mid + 1;
-            else hi = mid - 1;
+        PathQueryEngine(CsrGraph g, long cacheBytes) {
+            this(g, g.transpose(), cacheBytes);
         }
-        return -1;
-    }
 
-    /** Frequency map of integer array elements. */
-    static Map<Integer, Integer> elementFrequency(int[] arr) {
-        Map<Integer, Integer> map = new LinkedHashMap<>();
-        for (int x : arr) map.merge(x, 1, Integer::sum);
-        return map;
-    }
+        /**
+         * Picks k landmarks by farthest-point selection and stores exact distances from and
+         * to each: 2k full Dijkstra runs and 16kn bytes. Later distance() calls use A*.
+         */
+        void prepareLandmarks(int k) {
+            k = Math.min(k, n);
+            fromLandmark = new long[k][];
+            toLandmark = new long[k][];
+            long[] nearest = new long[n];
+            Arrays.fill(nearest, INF);
+            long[] probe = new long[n];
+            dijkstra(g, 0, -1, probe, null, new IndexedHeap(probe));
+            int next = farthest(probe);
+            for (int i = 0; i < k; i++) {
+                long[] from = new long[n], to = new long[n];
+                dijkstra(g, next, -1, from, null, new IndexedHeap(from));
+                dijkstra(reverse, next, -1, to, null, new IndexedHeap(to));
+                fromLandmark[i] = from;
+                toLandmark[i] = to;
+                for (int v = 0; v < n; v++) nearest[v] = Math.min(nearest[v], from[v]);
+                next = farthest(nearest);
+            }
+        }
 
-    /** Max element in array. */
-    static int maxElement(int[] arr) {
-        int max = arr[0];
-        for (int x : arr) max = Math.max(max, x);
-        return max;
+        /** Vertex with the largest finite value (0 if none is finite). */
+        private static int farthest(long[] d) {
+            int best = 0;
+            for (int v = 1; v < d.length; v++)
+                if (d[v] != INF && (d[best] == INF || d[v] > d[best])) best = v;
+            return best;
+        }
+
+        /**
+         * Cache a source's tree from its k-th cache miss on (1 = the first query from it);
+         * k <= 0 leaves caching to explicit tree(s) calls.
+         */
+        void cacheTreesAfter(int k) {
+            treeAfter = k;
+        }
+
+        long distance(int s, int t) {
+            queries++;
+            long[] tree = trees.get(s);
+            if (tree != null) {
+                cacheHits++;
+                lastSettled = 0;
+                return tree[t];
+            }
+            if (treeAfter > 0 && 8L * n + 16 <= cacheBytes) {
+                if (misses.size() > 1 << 16) misses.clear();        // bound the bookkeeping
+                if (misses.addTo(s, 1) >= treeAfter) {
+                    misses.put(s, 0);
+                    tree = tree(s);
+                    totalSettled += lastSettled;
+                    return tree[t];
+                }
+            }
+            long d = fromLandmark != null ? aStar(s, t) : bidirectional(s, t);
+            totalSettled += lastSettled;
+            return d;
+        }
+
+        /** Full distance array from s, served from or added to the LRU cache. Do not modify it. */
+        long[] tree(int s) {
+            long[] tree = trees.get(s);
+            if (tree != null) return tree;
+            tree = new long[n];
+            lastSettled = dijkstra(g, s, -1, tree, null, new IndexedHeap(tree));
+            long bytes = 8L * n + 16;
+            if (bytes <= cacheBytes) {
+                trees.put(s, tree);
+                cachedBytes += bytes;
+                Iterator<long[]> it = trees.values().iterator();
+                while (cachedBytes > cacheBytes) {
+                    it.next();
+                    it.remove();
+                    cachedBytes -= bytes;
+                }
+            }
+            return tree;
+        }
+
+        int lastSettled() {
+            return lastSettled;
+        }
+
+        long queries() {
+            return queries;
+        }
+
+        long cacheHits() {
+            return cacheHits;
+        }
+
+        /** Vertices settled over all searched (non-cached) queries. */
+        long totalSettled() {
+            return totalSettled;
+        }
+
+        /**
+         * Bidirectional Dijkstra: grows the forward search from s and the backward one from
+         * t (on reverse), always advancing the side with fewer queued vertices. best is the
+         * shortest s-t path seen across any edge joining the two; the search stops once the
+         * two queue minima add up to at least best.
+         */
+        long bidirectional(int s, int t) {
+            reset();
+            lastSettled = 0;
+            if (s == t) return 0;
+            distF[s] = 0;
+            distB[t] = 0;
+            touch(s);
+            touch(t);
+            heapF.offer(s);
+            heapB.offer(t);
+            long best = INF;
+            while (!heapF.isEmpty() && !heapB.isEmpty()) {
+                if (distF[heapF.peek()] + distB[heapB.peek()] >= best) break;
+                if (heapF.size() <= heapB.size()) best = expand(g, heapF, distF, distB, best);
+                else best = expand(reverse, heapB, distB, distF, best);
+            }
+            return best;
+        }
+
+        /** Settles one vertex of a side; returns the updated best meeting distance. */
+        private long expand(CsrGraph graph, IndexedHeap heap, long[] dist, long[] other, long best) {
+            int[] off = graph.offsets, tgt = graph.targets, w = graph.weights;
+            int u = heap.poll();
+            lastSettled++;
+            long du = dist[u];
+            for (int e = off[u], end = off[u + 1]; e < end; e++) {
+                int v = tgt[e];
+                long nd = du + w[e];
+                if (nd < dist[v]) {
+                    if (dist[v] == INF && other[v] == INF) touch(v);
+                    dist[v] = nd;
+                    heap.offer(v);
+                }
+                if (other[v] != INF) best = Math.min(best, nd + other[v]);
+            }
+            return best;
+        }
+
+        /** A* toward t with the ALT lower bound as potential (consistent, so no reopening). */
+        long aStar(int s, int t) {
+            reset();
+            lastSettled = 0;
+            int[] off = g.offsets, tgt = g.targets, w = g.weights;
+            long hs = potential(s, t);
+            if (hs == INF) return INF;
+            distF[s] = 0;
+            keyF[s] = hs;
+            touch(s);
+            heapA.offer(s);
+            while (!heapA.isEmpty()) {
+                int u = heapA.poll();
+                lastSettled++;
+                if (u == t) return distF[t];
+                long du = distF[u];
+                for (int e = off[u], end = off[u + 1]; e < end; e++) {
+                    int v = tgt[e];
+                    long nd = du + w[e];
+                    if (nd >= distF[v]) continue;
+                    long h;
+                    if (distF[v] == INF) {
+                        h = potential(v, t);
+                        if (h == INF) continue;
+                        touch(v);
+                    } else h = keyF[v] - distF[v];
+                    distF[v] = nd;
+                    keyF[v] = nd + h;
+                    heapA.offer(v);
+                }
+            }
+            return INF;
+        }
+
+        /**
+         * Lower bound on d(v, t) from the triangle inequality over every landmark L:
+         * d(L,t) - d(L,v) and d(v,L) - d(t,L). INF when some landmark proves t unreachable from v.
+         */
+        private long potential(int v, int t) {
+            long h = 0;
+            for (int i = 0; i < fromLandmark.length; i++) {
+                long[] from = fromLandmark[i], to = toLandmark[i];
+                if (from[t] != INF && from[v] != INF) h = Math.max(h, from[t] - from[v]);
+                if (to[t] != INF) {
+                    if (to[v] == INF) return INF;
+                    h = Math.max(h, to[v] - to[t]);
+                }
+            }
+            return h;
+        }
+
+        private void touch(int v) {
+            touched[touchedCount++] = v;
+        }
+
+        /** Undoes the previous search: O(vertices it touched), not O(n). */
+        private void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                int v = touched[i];
+                distF[v] = INF;
+                distB[v] = INF;
+            }
+            touchedCount = 0;
+            heapF.clear();
+            heapB.clear();
+            heapA.clear();
+        }
     }
 
-    /** Min element in array. */
-    static int minElement(int[] arr) {
-        int min = arr[0];
-        for (int x : arr) min = Math.min(min, x);
-        return min;
+    // ── Parallel direction-optimizing BFS ───────────────
+
+    /** Beamer's switching thresholds: go bottom-up when frontier edges > unexplored edges / ALPHA,
+     *  back top-down when the frontier shrinks below n / BETA. */
+    static final int BFS_ALPHA = 14, BFS_BETA = 24;
+
+    /** Bitset words per parallel task (4096 vertices). */
+    static final int BFS_CHUNK_WORDS = 64;
+
+    /**
+     * parallelBfs on all cores (common fork-join pool). Pass g itself as reverse when the
+     * graph is undirected; for a directed graph build g.transpose() once and keep it, since
+     * it copies every edge.
+     */
+    static int[] parallelBfs(CsrGraph g, CsrGraph reverse, int src) {
+        return parallelBfs(g, reverse, src, ForkJoinPool.commonPool());
     }
 
-    /** Kadane's algorithm — maximum subarray sum. O(n). */
-    static int maxSubarraySum(int[] arr) {
-        int best = arr[0], curr = arr[0];
-        for (int i = 1; i < arr.length; i++) {
-            curr = Math.max(arr[i], curr + arr[i]);
-            best = Math.max(best, curr);
+    /** parallelBfs on a pool of the given size, e.g. to measure scaling. */
+    static int[] parallelBfs(CsrGraph g, CsrGraph reverse, int src, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return parallelBfs(g, reverse, src, pool);
+        } finally {
+            pool.shutdown();
         }
-        return best;
     }
 
-    /** Shuffle array in-place (Fisher-Yates). */
-    static void shuffleArray(int[] arr) {
-        Random rng = new Random();
-        for (int i = arr.length - 1; i > 0; i--) {
-            int j = rng.nextInt(i + 1);
-            int tmp = arr[i]; arr[i] = arr[j]; arr[j] = tmp;
+    /**
+     * Level-synchronous direction-optimizing BFS (Beamer, Asanović, Patterson). Returns
+     * dist[] like bfs(CsrGraph, int). reverse holds the in-edges (pass g itself when the graph
+     * is undirected). Frontiers are bitsets split into chunks across the pool. Top-down
+     * steps expand the frontier's out-edges and claim vertices with a CAS on the shared
+     * visited bitset. Bottom-up steps let each unvisited vertex scan its in-edges for a
+     * frontier parent and stop at the first one. They write only their own words, so they
+     * need no CAS.
+     */
+    static int[] parallelBfs(CsrGraph g, CsrGraph reverse, int src, ForkJoinPool pool) {
+        int n = g.n, words = (n + 63) >>> 6, chunks = (words + BFS_CHUNK_WORDS - 1) / BFS_CHUNK_WORDS;
+        int[] dist = new int[n];
+        Arrays.fill(dist, -1);
+        dist[src] = 0;
+        AtomicLongArray visited = new AtomicLongArray(words), next = new AtomicLongArray(words);
+        long[] front = new long[words];
+        visited.set(src >>> 6, 1L << src);
+        front[src >>> 6] = 1L << src;
+        long frontEdges = g.degree(src), unexplored = g.edgeCount() - frontEdges;
+        int frontSize = 1;
+        boolean bottomUp = false;
+        for (int level = 1; frontSize > 0; level++) {
+            if (!bottomUp && frontEdges > unexplored / BFS_ALPHA) bottomUp = true;
+            else if (bottomUp && frontSize < n / BFS_BETA) bottomUp = false;
+            int lvl = level;
+            boolean bu = bottomUp;
+            try {
+                frontEdges = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .mapToLong(c -> bu ? bottomUpStep(g, reverse, c, lvl, dist, front, visited, next)
+                                       : topDownStep(g, c, lvl, dist, front, visited, next))
+                    .sum()).get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+            unexplored -= frontEdges;
+            frontSize = 0;
+            for (int w = 0; w < words; w++) {
+                long bits = next.get(w);
+                front[w] = bits;
+                frontSize += Long.bitCount(bits);
+                next.set(w, 0);
+            }
         }
+        return dist;
     }
 
-    /** All 2^n subsets of arr. */
-    static List<List<Integer>> generateSubsets(int[] arr) {
-        int n = arr.length;
-        List<List<Integer>> result = new ArrayList<>();
-        for (int mask = 0; mask < (1 << n); mask++) {
-            List<Integer> sub = new ArrayList<>();
-            for (int i = 0; i < n; i++)
-                if ((mask & (1 << i)) != 0) sub.add(arr[i]);
-            result.add(sub);
+    /** Expands frontier vertices in chunk c; returns the out-degree sum of the vertices it claimed. */
+    private static long topDownStep(CsrGraph g, int c, int level, int[] dist, long[] front,
+                                    AtomicLongArray visited, AtomicLongArray next) {
+        int[] off = g.offsets, tgt = g.targets;
+        long edges = 0;
+        for (int w = c * BFS_CHUNK_WORDS, end = Math.min(w + BFS_CHUNK_WORDS, front.length); w < end; w++) {
+            for (long bits = front[w]; bits != 0; bits &= bits - 1) {
+                int u = (w << 6) | Long.numberOfTrailingZeros(bits);
+                for (int e = off[u], stop = off[u + 1]; e < stop; e++) {
+                    int v = tgt[e];
+                    if (setBit(visited, v)) {
+                        dist[v] = level;
+                        setBit(next, v);
+                        edges += off[v + 1] - off[v];
+                    }
+                }
+            }
         }
-        return result;
+        return edges;
     }
 
-    /** Rotate array right by k positions. Returns new array. */
-    static int[] rotateArray(int[] arr, int k) {
-        int n = arr.length;
-        k = ((k % n) + n) % n;
-        int[] res = new int[n];
-        for (int i = 0; i < n; i++) res[(i + k) % n] = arr[i];
-        return res;
+    /** Finds parents for the unvisited vertices of chunk c; returns the out-degree sum of those found. */
+    private static long bottomUpStep(CsrGraph g, CsrGraph reverse, int c, int level, int[] dist, long[] front,
+                                     AtomicLongArray visited, AtomicLongArray next) {
+        int[] off = reverse.offsets, src = reverse.targets;
+        long edges = 0;
+        for (int w = c * BFS_CHUNK_WORDS, end = Math.min(w + BFS_CHUNK_WORDS, front.length); w < end; w++) {
+            long seen = visited.get(w), found = 0;
+            long todo = ~seen;
+            if (w == front.length - 1 && (g.n & 63) != 0) todo &= (1L << g.n) - 1;
+            for (; todo != 0; todo &= todo - 1) {
+                int v = (w << 6) | Long.numberOfTrailingZeros(todo);
+                for (int e = off[v], stop = off[v + 1]; e < stop; e++) {
+                    int u = src[e];
+                    if ((front[u >>> 6] & (1L << u)) != 0) {
+                        dist[v] = level;
+                        found |= 1L << v;
+                        edges += g.degree(v);
+                        break;
+                    }
+                }
+            }
+            if (found != 0) {
+                visited.set(w, seen | found);
+                next.set(w, found);
+            }
+        }
+        return edges;
     }
 
-    /** Prefix sum array. ps[i] = arr[0]+...+arr[i]. */
-    static int[] prefixSums(int[] arr) {
-        int[] ps = new int[arr.length];
-        ps[0] = arr[0];
-        for (int i = 1; i < arr.length; i++) ps[i] = ps[i-1] + arr[i];
-        return ps;
+    /** Atomically sets bit v; true if this call set it. */
+    private static boolean setBit(AtomicLongArray bits, int v) {
+        int w = v >>> 6;
+        long mask = 1L << v;
+        while (true) {
+            long old = bits.get(w);
+            if ((old & mask) != 0) return false;
+            if (bits.compareAndSet(w, old, old | mask)) return true;
+        }
     }
 
-    /** Range sum arr[l..r] using prefix sums. O(1). */
-    static int rangeSum(int[] prefix, int l, int r) {
-        return prefix[r] - (l > 0 ? prefix[l-1] : 0);
+    /**
+     * Undirected RMAT graph with 2^scale vertices and edgeFactor * 2^scale edges (Graph500
+     * parameters a=.57, b=c=.19). Vertex ids are shuffled so degree doesn't follow id.
+     */
+    static CsrGraph rmatGraph(int scale, int edgeFactor, long seed) {
+        int n = 1 << scale, m = edgeFactor << scale;
+        SplittableRandom rng = new SplittableRandom(seed);
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) perm[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1), t = perm[i];
+            perm[i] = perm[j];
+            perm[j] = t;
+        }
+        int[] from = new int[m], to = new int[m];
+        for (int i = 0; i < m; i++) {
+            int u = 0, v = 0;
+            for (int bit = 0; bit < scale; bit++) {
+                double r = rng.nextDouble();
+                if (r >= 0.57) {
+                    if (r < 0.76) v |= 1 << bit;
+                    else if (r < 0.95) u |= 1 << bit;
+                    else { u |= 1 << bit; v |= 1 << bit; }
+                }
+            }
+            from[i] = perm[u];
+            to[i] = perm[v];
+        }
+        return CsrGraph.fromEdges(n, from, to, null, true);
     }
 
-    /** Two-sum: returns {i, j} where arr[i]+arr[j]==target, or null. */
-    static int[] twoSum(int[] arr, int target) {
-        Map<Integer, Integer> seen = new HashMap<>();
-        for (int i = 0; i < arr.length; i++) {
-            if (seen.containsKey(target - arr[i]))
-                return new int[]{seen.get(target - arr[i]), i};
-            seen.put(arr[i], i);
+    /**
+     * Times map-based bfs, CSR bfs and parallelBfs (on 1 and on all threads) from the same
+     * source of an RMAT graph, checks they agree, and prints the results. Run e.g.
+     * bfsBenchmark(20, 16) from main; the map-based run is skipped above scale 20.
+     */
+    static void bfsBenchmark(int scale, int edgeFactor) {
+        CsrGraph g = rmatGraph(scale, edgeFactor, 42);
+        int src = 0;
+        while (g.degree(src) == 0) src++;
+        int threads = ForkJoinPool.commonPool().getParallelism();
+        System.out.println("RMAT scale " + scale + ": " + g.n + " vertices, " + g.edgeCount() + " directed edges, "
+            + threads + " worker threads");
+        int[] ref = bfs(g, src);
+        for (int rep = 0; rep < 3; rep++) {
+            long t0 = System.nanoTime();
+            bfs(g, src);
+            long t1 = System.nanoTime();
+            int[] p1 = parallelBfs(g, g, src, 1);
+            long t2 = System.nanoTime();
+            int[] pn = parallelBfs(g, g, src, ForkJoinPool.commonPool());
+            long t3 = System.nanoTime();
+            if (!Arrays.equals(ref, p1) || !Arrays.equals(ref, pn)) throw new IllegalStateException("parallelBfs mismatch");
+            System.out.printf("  csr bfs %.1f ms, parallelBfs x1 %.1f ms, x%d %.1f ms%n",
+                (t1 - t0) / 1e6, (t2 - t1) / 1e6, threads, (t3 - t2) / 1e6);
+        }
+        if (scale <= 20) {
+            Map<Integer, List<Integer>> map = new HashMap<>();
+            for (int u = 0; u < g.n; u++) {
+                List<Integer> nb = new ArrayList<>(g.degree(u));
+                for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) nb.add(g.targets[e]);
+                map.put(u, nb);
+            }
+            long t0 = System.nanoTime();
+            int reached = bfs(map, src).size();
+            System.out.printf("  map bfs %.1f ms (%d reached)%n", (System.nanoTime() - t0) / 1e6, reached);
         }
-        return null;
     }
 
-    /** Merge sort. Returns new sorted array. */
-    static int[] mergeSort(int[] arr) {
-        if (arr.length <= 1) return arr;
-        int mid = arr.length / 2;
-        int[] left  = mergeSort(Arrays.copyOfRange(arr, 0, mid));
-        int[] right = mergeSort(Arrays.copyOfRange(arr, mid, arr.length));
-        int[] res = new int[arr.length];
-        int i = 0, j = 0, k = 0;
-        while (i < left.length && j < right.length)
-            res[k++] = left[i] <= right[j] ? left[i++] : right[j++];
-        while (i < left.length)  res[k++] = left[i++];
-        while (j < right.length) res[k++] = right[j++];
-        return res;
-    }
+    // ── Union-find, spanning trees, DAGs ────────────────
 
+    /**
+     * Disjoint sets over 0..n-1 in two int[]s: union by size, find with path halving.
+     * With rollback = true, find does not compress (so unions can be undone) and each
+     * union is logged; rollback(snapshot()) restores an earlier state. Union by size alone
+     * keeps find at O(log n) in that mode.
+     */
+    static class UnionFind {
+        private final int[] parent, size;
+        private final int[] history;        // attached roots, rollback mode only
+        private int historySize, components;
 
-    // ─────────────────────────────────────────────────────
-    // GRAPH HELPERS
-    // ─────────────────────────────────────────────────────
+        UnionFind(int n) {
+            this(n, false);
+        }
 
-    /** BFS — returns distance map from start node. */
-    static Map<Integer, Integer> bfs(Map<Integer, List<Integer>> graph, int start) {
-        Map<Integer, Integer> dist = new HashMap<>();
-        Queue<Integer> q = new LinkedList<>();
-        dist.put(start, 0);
-        q.add(start);
-        while (!q.isEmpty()) {
-            int node = q.poll();
-            for (int nb : graph.getOrDefault(node, Collections.emptyList())) {
-                if (!dist.containsKey(nb)) {
-                    dist.put(nb, dist.get(node) + 1);
-                    q.add(nb);
-                }
+        UnionFind(int n, boolean rollback) {
+            parent = new int[n];
+            size = new int[n];
+            for (int i = 0; i < n; i++) {
+                parent[i] = i;
+                size[i] = 1;
             }
+            history = rollback ? new int[n] : null;
+            components = n;
         }
-        return dist;
-    }
 
-    /** DFS — returns visited order list. */
-    static List<Integer> dfs(Map<Integer, List<Integer>> graph, int start) {
-        Set<Integer> visited = new HashSet<>();
-        List<Integer> order = new ArrayList<>();
-        Deque<Integer> stack = new ArrayDeque<>();
-        stack.push(start);
-        while (!stack.isEmpty()) {
-            int node = stack.pop();
-            if (!visited.contains(node)) {
-                visited.add(node);
-                order.add(node);
-                for (int nb : graph.getOrDefault(node, Collections.emptyList()))
-                    if (!visited.contains(nb)) stack.push(nb);
+        int find(int x) {
+            if (history != null) {
+                while (parent[x] != x) x = parent[x];
+                return x;
+            }
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        /** Merges the sets of a and b; false if they were already one set. */
+        boolean union(int a, int b) {
+            a = find(a);
+            b = find(b);
+            if (a == b) return false;
+            if (size[a] < size[b]) { int t = a; a = b; b = t; }
+            parent[b] = a;
+            size[a] += size[b];
+            components--;
+            if (history != null) history[historySize++] = b;
+            return true;
+        }
+
+        boolean connected(int a, int b) {
+            return find(a) == find(b);
+        }
+
+        /** Size of the set containing x. */
+        int size(int x) {
+            return size[find(x)];
+        }
+
+        int components() {
+            return components;
+        }
+
+        /** Current position in the union log (rollback mode). */
+        int snapshot() {
+            return historySize;
+        }
+
+        /** Undoes every union made after snapshot was taken. */
+        void rollback(int snapshot) {
+            while (historySize > snapshot) {
+                int b = history[--historySize], a = parent[b];
+                size[a] -= size[b];
+                parent[b] = b;
+                components++;
             }
         }
-        return order;
     }
 
     /**
-     * Dijkstra's shortest path from src.
-     * graph: adjacency list of {neighbor, weight} pairs.
-     * Returns dist[] array.
+     * Kruskal's minimum spanning forest of the undirected edges from[i] - to[i] (weight w[i]).
+     * Edges are ordered by an LSD radix argsort on the weights, so sorting is O(m).
+     * Returns the indices of the chosen edges in weight order.
      */
-    static int[] dijkstra(List<int[]>[] graph, int src, int V) {
-        int[] dist = new int[V];
-        Arrays.fill(dist, Integer.MAX_VALUE);
-        dist[src] = 0;
-        PriorityQueue<int[]> pq = new PriorityQueue<>(Comparator.comparingInt(a -> a[0]));
-        pq.offer(new int[]{0, src});
-        while (!pq.isEmpty()) {
-            int[] cur = pq.poll();
-            int d = cur[0], u = cur[1];
-            if (d > dist[u]) continue;
-            for (int[] edge : graph[u]) {
-                int v = edge[0], w = edge[1];
-                if (dist[u] + w < dist[v]) {
-                    dist[v] = dist[u] + w;
-                    pq.offer(new int[]{dist[v], v});
+    static int[] kruskal(int n, int[] from, int[] to, int[] w) {
+        int[] order = argsort(w), chosen = new int[Math.max(n - 1, 0)];
+        UnionFind uf = new UnionFind(n);
+        int k = 0;
+        for (int i = 0; i < order.length && k < chosen.length; i++) {
+            int e = order[i];
+            if (uf.union(from[e], to[e])) chosen[k++] = e;
+        }
+        return Arrays.copyOf(chosen, k);
+    }
+
+    /**
+     * Prim's minimum spanning forest on an undirected weighted CSR graph (each edge stored in
+     * both directions), with an IndexedHeap keyed by the cheapest edge into the tree.
+     * parent (may be null) gets each vertex's tree neighbour, -1 for roots. Returns the
+     * total weight. O(m log n).
+     */
+    static long prim(CsrGraph g, int[] parent) {
+        int n = g.n;
+        int[] off = g.offsets, tgt = g.targets, w = g.weights, par = parent != null ? parent : new int[n];
+        long[] key = new long[n];
+        Arrays.fill(key, INF);
+        boolean[] done = new boolean[n];
+        IndexedHeap heap = new IndexedHeap(key);
+        long total = 0;
+        for (int root = 0; root < n; root++) {
+            if (done[root]) continue;
+            key[root] = 0;
+            par[root] = -1;
+            heap.offer(root);
+            while (!heap.isEmpty()) {
+                int u = heap.poll();
+                done[u] = true;
+                total += key[u];
+                for (int e = off[u], end = off[u + 1]; e < end; e++) {
+                    int v = tgt[e];
+                    if (!done[v] && w[e] < key[v]) {
+                        key[v] = w[e];
+                        par[v] = u;
+                        heap.offer(v);
+                    }
                 }
             }
         }
-        return dist;
+        return total;
     }
 
+    /** Kahn's algorithm: a topological order of g, or null if g has a cycle. O(n + m), no recursion. */
+    static int[] topologicalSort(CsrGraph g) {
+        int n = g.n;
+        int[] off = g.offsets, tgt = g.targets, indeg = new int[n], order = new int[n];
+        for (int v : tgt) indeg[v]++;
+        int head = 0, tail = 0;
+        for (int v = 0; v < n; v++) if (indeg[v] == 0) order[tail++] = v;
+        while (head < tail) {
+            int u = order[head++];
+            for (int e = off[u], end = off[u + 1]; e < end; e++)
+                if (--indeg[tgt[e]] == 0) order[tail++] = tgt[e];
+        }
+        return tail == n ? order : null;
+    }
+
+    /**
+     * Tarjan's strongly connected components, iterative: an explicit call stack with edge
+     * cursors replaces recursion, so million-vertex paths don't overflow the stack.
+     * Returns comp[v] in 0..c-1, numbered in reverse topological order of the condensation
+     * (sink components first); c = 1 + max(comp).
+     */
+    static int[] stronglyConnectedComponents(CsrGraph g) {
+        int n = g.n;
+        int[] off = g.offsets, tgt = g.targets;
+        int[] index = new int[n], low = new int[n], comp = new int[n];
+        int[] stack = new int[n], call = new int[n], cursor = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(comp, -1);
+        int counter = 0, sp = 0, components = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            int csp = 0;
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            call[csp] = root;
+            cursor[csp++] = off[root];
+            while (csp > 0) {
+                int u = call[csp - 1], e = cursor[csp - 1];
+                if (e < off[u + 1]) {
+                    cursor[csp - 1] = e + 1;
+                    int v = tgt[e];
+                    if (index[v] < 0) {
+                        index[v] = low[v] = counter++;
+                        stack[sp++] = v;
+                        call[csp] = v;
+                        cursor[csp++] = off[v];
+                    } else if (comp[v] < 0) low[u] = Math.min(low[u], index[v]);
+                    continue;
+                }
+                csp--;
+                if (low[u] == index[u]) {
+                    int v;
+                    do {
+                        v = stack[--sp];
+                        comp[v] = components;
+                    } while (v != u);
+                    components++;
+                }
+                if (csp > 0) {
+                    int p = call[csp - 1];
+                    low[p] = Math.min(low[p], low[u]);
+                }
+            }
+        }
+        return comp;
+    }
 
     // ─────────────────────────────────────────────────────
     // DYNAMIC PROGRAMMING TEMPLATES
@@ -476,16 +4062,87 @@ public class LMTCodeQuestRef {
         return dp[amount] > amount ? -1 : dp[amount];
     }
 
-    /** Longest Increasing Subsequence length. O(n log n). */
+    /** Longest Increasing Subsequence length. O(n log n), tails kept in an int[]. */
     static int lis(int[] arr) {
-        List<Integer> tails = new ArrayList<>();
+        int[] tails = new int[arr.length];
+        int len = 0;
         for (int x : arr) {
-            int pos = Collections.binarySearch(tails, x);
-            if (pos < 0) pos = -(pos + 1);
-            if (pos == tails.size()) tails.add(x);
-            else tails.set(pos, x);
+            int pos = lowerBound(tails, 0, len, x);
+            tails[pos] = x;
+            if (pos == len) len++;
+        }
+        return len;
+    }
+
+    /** One longest strictly increasing (or, strict = false, non-decreasing) subsequence of arr. */
+    static int[] lisSequence(int[] arr, boolean strict) {
+        Lis lis = new Lis(arr.length, strict);
+        for (int x : arr) lis.offer(x);
+        return lis.sequence();
+    }
+
+    /**
+     * Streaming patience-sorting LIS: offer values one at a time, ask for the length or an
+     * actual subsequence at any point. tails[k] is the smallest value ending a chain of
+     * length k+1 and parent[] links each element to its predecessor in its best chain.
+     * All state is in growable int[]s, so nothing boxes; offer is O(log length).
+     */
+    static class Lis {
+        final boolean strict;
+        private int[] tails, tailIdx, parent, vals;
+        private int len, count;
+
+        Lis(boolean strict) {
+            this(16, strict);
+        }
+
+        Lis(int expected, boolean strict) {
+            this.strict = strict;
+            int cap = Math.max(expected, 1);
+            tails = new int[cap];
+            tailIdx = new int[cap];
+            parent = new int[cap];
+            vals = new int[cap];
+        }
+
+        /** Adds x; returns the length of the longest chain ending at it. */
+        int offer(int x) {
+            if (count == vals.length) {
+                int cap = count * 2;
+                parent = Arrays.copyOf(parent, cap);
+                vals = Arrays.copyOf(vals, cap);
+            }
+            if (len == tails.length) {
+                tails = Arrays.copyOf(tails, len * 2);
+                tailIdx = Arrays.copyOf(tailIdx, len * 2);
+            }
+            int pos = strict ? lowerBound(tails, 0, len, x) : upperBound(tails, 0, len, x);
+            tails[pos] = x;
+            tailIdx[pos] = count;
+            parent[count] = pos > 0 ? tailIdx[pos - 1] : -1;
+            vals[count] = x;
+            count++;
+            if (pos == len) len++;
+            return pos + 1;
+        }
+
+        int length() {
+            return len;
+        }
+
+        /** Positions (in offer order) of one longest chain. */
+        int[] indices() {
+            int[] res = new int[len];
+            for (int k = len - 1, i = len > 0 ? tailIdx[len - 1] : -1; k >= 0; k--, i = parent[i]) res[k] = i;
+            return res;
+        }
+
+        /** Values of one longest chain. */
+        int[] sequence() {
+            int[] res = indices();
+            for (int k = 0; k < res.length; k++) res[k] = vals[res[k]];
+            return res;
         }
-        return tails.size();
     }
 
 
@@ -500,25 +4157,64 @@ public class LMTCodeQuestRef {
         System.out.println("isPrime(17) = " + isPrime(17) + ", isPrime(18) = " + isPrime(18));
         System.out.println("factorial(10) = " + factorial(10));
         System.out.println("combination(10,3) = " + combination(10, 3));
+        System.out.println("binomialExact(66,33) = " + binomialExact(66, 33)
+            + ", binomialBig(100,50) = " + binomialBig(100, 50));
+        ModComb mc = ModComb.of(1_000_000, MOD);
+        System.out.println("ModComb: C(1e6,5e5) = " + mc.nCr(1_000_000, 500_000)
+            + ", catalan(10) = " + mc.catalan(10)
+            + ", lucas C(1e18+7,5) mod 13 = " + ModComb.of(12, 13).nCr(1_000_000_000_000_000_007L, 5));
         System.out.println("permutation(10,3) = " + permutation(10, 3));
         System.out.println("getDivisors(36) = " + getDivisors(36));
+        System.out.println("isPrime(2^61-1) = " + isPrime((1L << 61) - 1)
+            + ", factor(600851475143) = " + factor(600_851_475_143L));
         System.out.println("sumToN(100) = " + sumToN(100));
         System.out.println("power(2,10) = " + power(2, 10));
         System.out.println("modPow(2,100,MOD) = " + modPow(2, 100, MOD));
+        Montgomery mg = Montgomery.of(MOD);
+        System.out.println("Montgomery: inv(2) = " + mg.inv(2)
+            + ", inverseAll([2,3,4]) = " + Arrays.toString(mg.inverseAll(new long[]{2, 3, 4})));
         System.out.println("isPowerOfTwo(64) = " + isPowerOfTwo(64));
         System.out.println("countSetBits(255) = " + countSetBits(255));
+        SpfTable spf = new SpfTable(1000);
+        System.out.println("SpfTable: factorize(360) = " + Arrays.toString(spf.factorize(360))
+            + ", phi(36) = " + spf.eulerPhi(36) + ", mobius(30) = " + spf.mobius(30)
+            + ", divisors(28) = " + Arrays.toString(spf.divisors(28)));
         System.out.println("sieve(30) = " + sieve(30));
+        System.out.println("primesUpTo(30) = " + Arrays.toString(primesUpTo(30)));
+        System.out.println("primesInRange(1e12, 1e12+100) = "
+            + Arrays.toString(primesInRange(1_000_000_000_000L, 1_000_000_000_100L)));
+        long[] primeSum = {0};
+        forEachPrime(2, 1_000_000, p -> primeSum[0] += p);
+        System.out.println("sum of primes <= 1e6 = " + primeSum[0]
+            + ", parallel count <= 1e7 = " + parallelPrimesInRange(2, 10_000_000).length);
 
         System.out.println("\n=== Sequences ===");
         System.out.println("fibonacci(10) = " + Arrays.toString(fibonacci(10)));
         System.out.println("nthFibonacci(10) = " + nthFibonacci(10));
+        System.out.println("fibMod(1e18, MOD) = " + fibMod(1_000_000_000_000_000_000L, MOD));
+        LinearRecurrence trib = LinearRecurrence.fromSequence(new long[]{0, 0, 1, 1, 2, 4, 7, 13}, MOD);
+        System.out.println("tribonacci via Berlekamp-Massey: T(1e18) mod p = " + trib.nth(1_000_000_000_000_000_000L));
         System.out.println("pascalRow(5) = " + Arrays.toString(pascalRow(5)));
+        System.out.println("pascalRowMod(1e6, MOD)[3] = " + pascalRowMod(1_000_000, MOD)[3]);
+        long[] packed = pascalTrianglePacked(6, 0);
+        System.out.println("pascalTrianglePacked(6, 0): C(5,2) = " + packed[pascalIndex(5, 2)]);
 
         System.out.println("\n=== Strings ===");
         System.out.println("reverseString(\"hello\") = " + reverseString("hello"));
         System.out.println("isPalindrome(\"racecar\") = " + isPalindrome("racecar"));
         System.out.println("charFrequency(\"hello\") = " + charFrequency("hello"));
         System.out.println("isAnagram(\"listen\",\"silent\") = " + isAnagram("listen", "silent"));
+        System.out.println("lcs(\"ABCBDAB\",\"BDCABA\") = " + lcs("ABCBDAB", "BDCABA")
+            + ", lcsString = " + lcsString("ABCBDAB", "BDCABA")
+            + ", editDistance(\"kitten\",\"sitting\") = " + editDistanceBitParallel("kitten", "sitting"));
+        StringIndex idx = new StringIndex("banana");
+        System.out.println("StringIndex(\"banana\"): sa = " + Arrays.toString(idx.sa)
+            + ", occurrences(\"ana\") = " + Arrays.toString(idx.occurrences("ana"))
+            + ", longestRepeated = " + idx.longestRepeatedSubstring());
+        System.out.println("longestPalindrome(\"forgeeksskeegfor\") = " + longestPalindrome("forgeeksskeegfor")
+            + ", zFunction(\"aabxaab\") = " + Arrays.toString(zFunction("aabxaab")));
+        System.out.println("anagramClasses([eat,tea,tan,ate,nat,bat]) = "
+            + Arrays.toString(anagramClasses(new String[]{"eat", "tea", "tan", "ate", "nat", "bat"})));
 
         System.out.println("\n=== Base Conversion ===");
         System.out.println("decimalToBinary(42) = " + decimalToBinary(42));
@@ -528,15 +4224,73 @@ public class LMTCodeQuestRef {
         int[] arr = {3, 1, 4, 1, 5, 9, 2, 6};
         int[] sorted = arr.clone(); Arrays.sort(sorted);
         System.out.println("binarySearch(sorted,5) = " + binarySearch(sorted, 5));
+        System.out.println("equalRange(sorted,1) = " + Arrays.toString(equalRange(sorted, 1))
+            + ", lowerBounds(sorted,[0,4,7,10]) = " + Arrays.toString(lowerBounds(sorted, new int[]{0, 4, 7, 10}))
+            + ", EytzingerIndex.lowerBound(5) = " + new EytzingerIndex(sorted).lowerBound(5));
         System.out.println("elementFrequency = " + elementFrequency(arr));
+        IntCounter counter = IntCounter.of(arr);
+        System.out.println("IntCounter: count(1) = " + counter.get(1) + ", distinct = " + counter.distinct()
+            + ", charCounts(\"hello\")['l'] = " + charCounts("hello")['l']);
         System.out.println("maxElement = " + maxElement(arr) + ", minElement = " + minElement(arr));
         System.out.println("maxSubarraySum([-2,1,-3,4,-1,2,1,-5,4]) = "
             + maxSubarraySum(new int[]{-2,1,-3,4,-1,2,1,-5,4}));
         System.out.println("generateSubsets([1,2,3]) = " + generateSubsets(new int[]{1,2,3}));
+        int[] radixed = arr.clone(); radixSort(radixed);
+        System.out.println("radixSort = " + Arrays.toString(radixed) + ", argsort = " + Arrays.toString(argsort(arr)));
+        FenwickTree fw = FenwickTree.of(arr);
+        fw.add(2, 10);
+        LazySegTree seg = new LazySegTree(new long[]{3, 1, 4, 1, 5, 9, 2, 6}, MIN);
+        seg.add(0, 3, 10);
+        System.out.println("Fenwick: sum[1..4] after +10 at 2 = " + fw.rangeSum(1, 4)
+            + ", lowerBound(20) = " + fw.lowerBound(20)
+            + "; LazySegTree min[0..7] after +10 on [0..3] = " + seg.query(0, 7)
+            + "; SparseTable max[2..5] = " + new SparseTable(arr, true).query(2, 5));
+
+        System.out.println("\n=== Graphs ===");
+        Map<Integer, List<Integer>> adj = new HashMap<>();
+        adj.put(0, Arrays.asList(1, 2));
+        adj.put(1, Arrays.asList(3));
+        adj.put(2, Arrays.asList(3, 4));
+        adj.put(3, Arrays.asList(5));
+        CsrGraph g = CsrGraph.fromMap(adj);
+        System.out.println("bfs(map,0) = " + bfs(adj, 0) + ", bfs(csr,0) = " + Arrays.toString(bfs(g, 0))
+            + ", dfs(csr,0) = " + Arrays.toString(dfs(g, 0)) + ", parallelBfs = " + Arrays.toString(parallelBfs(g, g.transpose(), 0)));
+        CsrGraph wg = new CsrGraph.Builder()
+            .addUndirected(0, 1, 4).addUndirected(0, 2, 1).addUndirected(2, 1, 2)
+            .addUndirected(1, 3, 1).addUndirected(2, 3, 5).build();
+        long[] sp = new long[wg.n];
+        int[] par = new int[wg.n];
+        dijkstra(wg, 0, 3, sp, par, new IndexedHeap(sp));
+        System.out.println("dijkstra(csr,0->3) = " + sp[3] + " via " + Arrays.toString(path(par, sp, 3))
+            + ", dial = " + Arrays.toString(dial(wg, 0)));
+        PathQueryEngine engine = new PathQueryEngine(wg, wg, 1 << 20);
+        long bidi = engine.distance(0, 3);
+        int bidiSettled = engine.lastSettled();
+        engine.prepareLandmarks(2);
+        System.out.println("PathQueryEngine: bidirectional 0->3 = " + bidi + " (" + bidiSettled + " settled), ALT = "
+            + engine.distance(0, 3) + " (" + engine.lastSettled() + " settled), cached tree(1)[3] = " + engine.tree(1)[3]);
+        int[] ef = {0, 0, 2, 1, 2}, et = {1, 2, 1, 3, 3}, ew = {4, 1, 2, 1, 5};
+        int[] mst = kruskal(4, ef, et, ew);
+        long mstWeight = 0;
+        for (int e : mst) mstWeight += ew[e];
+        UnionFind uf = new UnionFind(4, true);
+        int snap = uf.snapshot();
+        uf.union(0, 1);
+        uf.union(2, 3);
+        int merged = uf.components();
+        uf.rollback(snap);
+        System.out.println("kruskal weight = " + mstWeight + ", prim weight = " + prim(wg, null)
+            + ", UnionFind components " + merged + " -> rollback -> " + uf.components());
+        CsrGraph dag = CsrGraph.fromEdges(5, new int[]{0, 0, 1, 3, 3}, new int[]{1, 2, 2, 1, 4}, null, false);
+        CsrGraph cyc = CsrGraph.fromEdges(5, new int[]{0, 1, 2, 2, 3}, new int[]{1, 2, 0, 3, 4}, null, false);
+        System.out.println("topologicalSort = " + Arrays.toString(topologicalSort(dag))
+            + ", scc([0->1->2->0, 2->3->4]) = " + Arrays.toString(stronglyConnectedComponents(cyc)));
 
         System.out.println("\n=== DP ===");
         System.out.println("coinChange([1,2,5], 11) = " + coinChange(new int[]{1,2,5}, 11));
-        System.out.println("lis([10,9,2,5,3,7,101,18]) = " + lis(new int[]{10,9,2,5,3,7,101,18}));
+        System.out.println("lis([10,9,2,5,3,7,101,18]) = " + lis(new int[]{10,9,2,5,3,7,101,18})
+            + ", lisSequence = " + Arrays.toString(lisSequence(new int[]{10,9,2,5,3,7,101,18}, true))
+            + ", non-decreasing([1,3,3,2,2,2]) = " + Arrays.toString(lisSequence(new int[]{1,3,3,2,2,2}, false)));
         System.out.println("knapsack(W=6,[2,3,4],[3,4,5]) = "
             + knapsack(6, new int[]{2,3,4}, new int[]{3,4,5}));
     }
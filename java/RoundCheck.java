@@ -0,0 +1,63 @@
+import java.util.Random;
+
+// randomized differential check of template.cq.round against the BigDecimal
+// version cq.roundBig. run after touching either one:
+//   javac template.java RoundCheck.java && java RoundCheck [cases] [seed]
+// prints the first mismatch and exits with status 1, otherwise prints ok
+public class RoundCheck {
+
+  // values where binary representation and HALF_UP ties are easy to get wrong
+  static final double[] SPECIAL = { 0.0, -0.0, 0.5, 1.5, 2.5, -2.5, 2.675, 1.005, 0.125, -0.125, 0.045,
+      1e-7, 1e-20, -1e-20, 1e15, 1e18, 1e19, 9.223372036854776E18, 123456789.987654321,
+      Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY };
+
+  public static void main(String[] args) {
+    int cases = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : 7;
+    Random r = new Random(seed);
+    byte[] buf = new byte[template.cq.ROUND_MAX_LEN + 3];
+    long fast = 0;
+    for (int i = 0; i < cases; i++) {
+      double v;
+      switch (i % 6) {
+        case 0: v = Double.longBitsToDouble(r.nextLong()); break; // any bit pattern
+        case 1: v = (r.nextInt(2_000_000) - 1_000_000) / 1000.0 + 0.0005; break; // near ties
+        case 2: v = r.nextDouble() * Math.pow(10, r.nextInt(40) - 20); break;
+        case 3: v = SPECIAL[r.nextInt(SPECIAL.length)]; break;
+        case 4: v = (r.nextLong() % 100_000_000) / 8.0; break; // exact binary fractions
+        default: v = r.nextGaussian() * 1e6;
+      }
+      if (r.nextBoolean())
+        v = -v;
+      int d = r.nextInt(32) - 2; // includes invalid negative scales
+      String expected = run(v, d, true);
+      String got = run(v, d, false);
+      // the buffer version at a nonzero offset must write the same bytes
+      int end = template.cq.round(v, d, buf, 3);
+      if (end >= 0) {
+        fast++;
+        String direct = new String(buf, 3, end - 3, java.nio.charset.StandardCharsets.ISO_8859_1);
+        if (!direct.equals(expected))
+          fail(v, d, expected, direct);
+      }
+      if (!expected.equals(got))
+        fail(v, d, expected, got);
+    }
+    System.out.println("ok: " + cases + " cases, " + fast + " on the primitive path");
+  }
+
+  // either implementation, with exceptions turned into comparable strings
+  static String run(double v, int d, boolean big) {
+    try {
+      return big ? template.cq.roundBig(v, d) : template.cq.round(v, d);
+    } catch (RuntimeException e) {
+      return e.getClass().getSimpleName();
+    }
+  }
+
+  static void fail(double v, int d, String expected, String got) {
+    System.out.println("mismatch: round(" + v + " [" + Long.toHexString(Double.doubleToRawLongBits(v)) + "], "
+        + d + ") = " + got + ", BigDecimal gives " + expected);
+    System.exit(1);
+  }
+}
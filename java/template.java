@@ -1,39 +1,55 @@
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 public class template {
 
-  public static void main(String[] args) throws FileNotFoundException {
-    // goes line by line and returns each input line as a string in the arraylist
+  public static void main(String[] args) throws IOException {
+    // reads the input one token or line at a time straight from a byte buffer.
     // remove the parameter completeley (not just empty string) to switch from file
-    // input to submission input
-    ArrayList<String> stuff = cq.in("1.in");
-    // there are multiple ways to output. the way i did it is to add each line of
-    // the output to the output arraylist, then print them at the end, this, in my
-    // opinion, makes it easier to debug because your print statements at the end
-    // won't interfere with debug print statements.
-    ArrayList<String> output = new ArrayList<String>();
+    // input to submission input. cq.in() still works if you want every line in an
+    // arraylist up front
+    fastIn in = new fastIn("1.in");
+    // there are multiple ways to output. the way i did it is to hold every line of
+    // the output and print them all at the end, this, in my opinion, makes it
+    // easier to debug because your print statements at the end won't interfere
+    // with debug print statements. fastOut(true) does exactly that, fastOut()
+    // streams in big chunks instead which is better for huge outputs
+    fastOut out = new fastOut(true);
     // in every problem, the number of test cases is the first line of the input
-    int testCases = Integer.parseInt(stuff.remove(0));
+    // nextInt works like Scanner, so the rest of the line is still there afterwards
+    int testCases = in.nextInt();
+    in.nextLine();
     // loop through each test case. the variable is named vv becsuse it is rarely
     // used if ever in my experience and it makes it so if you have muscle memory
     // like me typing a for loop with i as your variable doesnt get in the way
     for (int vv = 0; vv < testCases; vv++) {
       // this code is the simple hello world problem to test that everything is
       // working
-      String line = stuff.remove(0);
+      String line = in.nextLine();
 
-      output.add(line);
+      out.println(line);
     }
-    // print output list
-    for (int i = 0; i < output.size(); i++) {
-      System.out.println(output.get(i));
-    }
-
+    // print output
+    out.close();
+    in.close();
   }
 
   public static class cq {
@@ -66,11 +82,483 @@ public class template {
     // rounding is the most useful function becsuse a lot of problems require it.
     // codequest used "HALFUP" for rounding unless otherwise specified
     public static String round(double val, int decimals) {
+      byte[] out = new byte[ROUND_MAX_LEN];
+      int end = round(val, decimals, out, 0);
+      if (end < 0)
+        return roundBig(val, decimals);
+      return new String(out, 0, end, StandardCharsets.ISO_8859_1);
+    }
+
+    // the original BigDecimal version. round() falls back to it for the weird
+    // cases (NaN, huge numbers, more than 27 decimals, results BigDecimal prints
+    // in E notation) so the output is always exactly the same
+    public static String roundBig(double val, int decimals) {
       // Use BigDecimal for precise rounding
       BigDecimal bd = new BigDecimal(val);
       bd = bd.setScale(decimals, RoundingMode.HALF_UP);
       return bd.toString();
     }
+
+    // most bytes round(val, decimals, dst, off) will ever write
+    public static final int ROUND_MAX_LEN = 32;
+
+    private static final long[] POW5 = new long[28];
+    static {
+      POW5[0] = 1;
+      for (int i = 1; i < POW5.length; i++)
+        POW5[i] = POW5[i - 1] * 5;
+    }
+
+    // allocation free version of round. writes the same characters round()
+    // would return into dst starting at off and returns the end offset, or -1
+    // (writing nothing) if the value needs the BigDecimal fallback. dst needs
+    // ROUND_MAX_LEN bytes of room.
+    // how it works: a double is exactly m * 2^e, so val * 10^d is exactly
+    // m * 5^d * 2^(d+e). m * 5^d fits in 128 bits, and after shifting by d+e
+    // the integer part is the answer and the first bit shifted out says
+    // whether the leftover is >= 0.5, which is exactly HALF_UP
+    public static int round(double val, int decimals, byte[] dst, int off) {
+      if (decimals < 0 || decimals >= POW5.length)
+        return -1;
+      long bits = Double.doubleToRawLongBits(val);
+      int exp = (int) (bits >>> 52) & 0x7ff;
+      if (exp == 0x7ff)
+        return -1;
+      long m = bits & 0xfffffffffffffL;
+      int e;
+      if (exp == 0) {
+        e = -1074;
+      } else {
+        m |= 1L << 52;
+        e = exp - 1075;
+      }
+      // 128 bit product m * 5^d, both fit in 63 bits
+      long p5 = POW5[decimals];
+      long hi = Math.multiplyHigh(m, p5), lo = m * p5;
+      int k = -(decimals + e);
+      long q;
+      if (k <= 0) {
+        int s = -k;
+        if (hi != 0 || s >= 63 || (lo >>> (63 - s)) != 0)
+          return -1;
+        q = lo << s;
+      } else {
+        boolean up;
+        if (k >= 128) {
+          // m * 5^d < 2^116 so the value is below 0.5
+          q = 0;
+          up = false;
+        } else {
+          long qhi;
+          if (k < 64) {
+            q = (lo >>> k) | (hi << (64 - k));
+            qhi = hi >>> k;
+          } else {
+            q = hi >>> (k - 64);
+            qhi = 0;
+          }
+          if (qhi != 0 || q < 0)
+            return -1;
+          up = ((k - 1 < 64 ? lo >>> (k - 1) : hi >>> (k - 65)) & 1) != 0;
+        }
+        if (up && ++q < 0)
+          return -1;
+      }
+      // BigDecimal switches to E notation once the exponent is below -6
+      int digits = 1;
+      for (long t = q; t >= 10; t /= 10)
+        digits++;
+      if (digits - 1 - decimals < -6)
+        return -1;
+      int pos = off;
+      if (bits < 0 && q != 0)
+        dst[pos++] = '-';
+      // at least one digit before the point
+      int total = Math.max(digits, decimals + 1);
+      int end = pos + total + (decimals > 0 ? 1 : 0);
+      int w = end;
+      for (int i = 0; i < total; i++) {
+        if (i == decimals && decimals > 0)
+          dst[--w] = '.';
+        dst[--w] = (byte) ('0' + q % 10);
+        q /= 10;
+      }
+      return end;
+    }
+  }
+
+  // fast input for big test files. Scanner + ArrayList + remove(0) is fine for
+  // normal problems but gets slow once the input is hundreds of MB. this reads
+  // into one reusable byte buffer and parses numbers straight out of it, so only
+  // nextToken and nextLine ever make a String. files are memory-mapped, System.in
+  // goes through a DataInputStream
+  public static class fastIn {
+    private static final int BUF_SIZE = 1 << 16;
+    // mapping windows are capped so files over 2GB still work
+    private static final long MAP_WINDOW = 1L << 30;
+
+    private final byte[] buf = new byte[BUF_SIZE];
+    private int ptr = 0, len = 0;
+    private byte[] tok = new byte[64];
+    private int tokLen = 0;
+
+    private InputStream stream;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private long mapPos = 0, fileSize = 0;
+
+    // submission input
+    public fastIn() {
+      stream = new DataInputStream(System.in);
+    }
+
+    // test file input, same idea as cq.in(filePath)
+    public fastIn(String filePath) throws IOException {
+      if (!new File(filePath).exists())
+        throw new FileNotFoundException(filePath);
+      channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+      fileSize = channel.size();
+    }
+
+    private boolean fill() {
+      try {
+        if (channel != null) {
+          if (map == null || !map.hasRemaining()) {
+            if (mapPos >= fileSize)
+              return false;
+            long size = Math.min(MAP_WINDOW, fileSize - mapPos);
+            map = channel.map(FileChannel.MapMode.READ_ONLY, mapPos, size);
+            mapPos += size;
+          }
+          len = Math.min(buf.length, map.remaining());
+          map.get(buf, 0, len);
+        } else {
+          len = stream.read(buf, 0, buf.length);
+          if (len <= 0) {
+            // keep ptr == len so every later read() returns -1 too
+            len = ptr = 0;
+            return false;
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      ptr = 0;
+      return true;
+    }
+
+    private int read() {
+      if (ptr == len && !fill())
+        return -1;
+      // unsigned, so UTF-8 bytes (>= 0x80) aren't taken for whitespace or -1
+      return buf[ptr++] & 0xff;
+    }
+
+    // puts back the last byte read so the next call sees it again. only valid
+    // right after a read() that didnt return -1
+    private void unread(int c) {
+      if (c != -1)
+        ptr--;
+    }
+
+    private int skipSpace() {
+      int c = read();
+      while (c != -1 && c <= ' ')
+        c = read();
+      return c;
+    }
+
+    private void push(int c) {
+      if (tokLen == tok.length)
+        tok = Arrays.copyOf(tok, tok.length * 2);
+      tok[tokLen++] = (byte) c;
+    }
+
+    // true if there is another token left (skips whitespace, including newlines)
+    public boolean hasNext() {
+      int c = skipSpace();
+      unread(c);
+      return c != -1;
+    }
+
+    // true if there is anything left at all, like Scanner.hasNextLine
+    public boolean hasNextLine() {
+      return ptr < len || fill();
+    }
+
+    public long nextLong() {
+      int c = skipSpace();
+      if (c == -1)
+        throw new NoSuchElementException();
+      boolean neg = c == '-';
+      if (neg || c == '+')
+        c = read();
+      if (c < '0' || c > '9')
+        throw new NumberFormatException("not a number at '" + (char) c + "'");
+      // accumulate negatively so Long.MIN_VALUE parses too; same overflow checks as Long.parseLong
+      long res = 0, limit = neg ? Long.MIN_VALUE : -Long.MAX_VALUE, multMin = limit / 10;
+      while (c >= '0' && c <= '9') {
+        int d = c - '0';
+        if (res < multMin || res * 10 < limit + d)
+          throw new NumberFormatException("out of long range");
+        res = res * 10 - d;
+        c = read();
+      }
+      if (c > ' ')
+        throw new NumberFormatException("not a number at '" + (char) c + "'");
+      unread(c);
+      return neg ? res : -res;
+    }
+
+    public int nextInt() {
+      long v = nextLong();
+      if (v != (int) v)
+        throw new NumberFormatException("out of int range: " + v);
+      return (int) v;
+    }
+
+    public double nextDouble() {
+      int c = skipSpace();
+      if (c == -1)
+        throw new NoSuchElementException();
+      // fast path: up to 15 significant digits, no exponent. mantissa and
+      // 10^scale are both exact doubles when digits <= 15 and scale <= 22, so
+      // one division gives the correctly rounded answer. anything else goes to
+      // parseDouble
+      tokLen = 0;
+      boolean neg = c == '-';
+      long mant = 0;
+      int digits = 0, scale = 0;
+      boolean dot = false, simple = true, any = false;
+      while (c > ' ') {
+        push(c);
+        if (c >= '0' && c <= '9') {
+          any = true;
+          if (mant != 0 || c != '0')
+            digits++;
+          mant = mant * 10 + (c - '0');
+          if (dot)
+            scale++;
+        } else if (c == '.' && !dot) {
+          dot = true;
+        } else if (!((c == '-' || c == '+') && tokLen == 1)) {
+          simple = false;
+        }
+        c = read();
+      }
+      unread(c);
+      if (simple && any && digits <= 15 && scale <= 22) {
+        double v = mant / POW10[scale];
+        return neg ? -v : v;
+      }
+      return Double.parseDouble(new String(tok, 0, tokLen, StandardCharsets.US_ASCII));
+    }
+
+    private static final double[] POW10 = new double[23];
+    static {
+      POW10[0] = 1;
+      for (int i = 1; i < POW10.length; i++)
+        POW10[i] = POW10[i - 1] * 10;
+    }
+
+    // next whitespace separated word
+    public String nextToken() {
+      int c = skipSpace();
+      if (c == -1)
+        return null;
+      tokLen = 0;
+      while (c > ' ') {
+        push(c);
+        c = read();
+      }
+      unread(c);
+      return new String(tok, 0, tokLen, StandardCharsets.UTF_8);
+    }
+
+    // rest of the current line without the line break, or null at the end of
+    // the input. this is the cursor version of stuff.remove(0)
+    public String nextLine() {
+      int c = read();
+      if (c == -1)
+        return null;
+      tokLen = 0;
+      while (c != -1 && c != '\n') {
+        push(c);
+        c = read();
+      }
+      if (tokLen > 0 && tok[tokLen - 1] == '\r')
+        tokLen--;
+      return new String(tok, 0, tokLen, StandardCharsets.UTF_8);
+    }
+
+    // skips the rest of the current line without making a String
+    public void skipLine() {
+      int c = read();
+      while (c != -1 && c != '\n')
+        c = read();
+    }
+
+    public void close() throws IOException {
+      if (channel != null)
+        channel.close();
+      else
+        stream.close();
+    }
+  }
+
+  // fast output. System.out.println is synchronized and flushes on every call,
+  // which adds up on million line outputs. this appends numbers and text into
+  // one byte buffer and writes it to stdout in big chunks. call close() (or at
+  // least flush()) at the end or nothing gets printed
+  public static class fastOut {
+    private static final int BUF_SIZE = 1 << 16;
+
+    private final OutputStream os;
+    // hold mode keeps everything until flush()/close(), so debug prints always
+    // show up before the answers
+    private final boolean hold;
+    private byte[] buf = new byte[BUF_SIZE];
+    private int len = 0;
+    private final byte[] digits = new byte[20];
+
+    // streams to stdout in chunks
+    public fastOut() {
+      this(false);
+    }
+
+    public fastOut(boolean holdUntilClose) {
+      this(new FileOutputStream(FileDescriptor.out), holdUntilClose);
+    }
+
+    public fastOut(OutputStream os, boolean holdUntilClose) {
+      this.os = os;
+      this.hold = holdUntilClose;
+    }
+
+    private void ensure(int n) {
+      if (len + n <= buf.length)
+        return;
+      if (hold)
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+      else {
+        writeBuf();
+        if (n > buf.length)
+          buf = new byte[n];
+      }
+    }
+
+    private void writeBuf() {
+      try {
+        os.write(buf, 0, len);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      len = 0;
+    }
+
+    public fastOut print(char c) {
+      if (c >= 0x80)
+        return print(String.valueOf(c));
+      ensure(1);
+      buf[len++] = (byte) c;
+      return this;
+    }
+
+    public fastOut print(int v) {
+      return print((long) v);
+    }
+
+    public fastOut print(long v) {
+      ensure(20);
+      if (v == Long.MIN_VALUE)
+        return print("-9223372036854775808");
+      if (v < 0) {
+        buf[len++] = '-';
+        v = -v;
+      }
+      int n = 0;
+      do {
+        digits[n++] = (byte) ('0' + v % 10);
+        v /= 10;
+      } while (v > 0);
+      while (n > 0)
+        buf[len++] = digits[--n];
+      return this;
+    }
+
+    public fastOut print(String s) {
+      // ascii goes straight in, anything else gets encoded properly
+      int n = s.length();
+      ensure(n);
+      for (int i = 0; i < n; i++) {
+        char c = s.charAt(i);
+        if (c >= 0x80) {
+          byte[] b = s.substring(i).getBytes(StandardCharsets.UTF_8);
+          ensure(b.length);
+          System.arraycopy(b, 0, buf, len, b.length);
+          len += b.length;
+          return this;
+        }
+        buf[len++] = (byte) c;
+      }
+      return this;
+    }
+
+    // HALF_UP rounded to the given number of decimals, same digits as cq.round
+    public fastOut print(double val, int decimals) {
+      ensure(cq.ROUND_MAX_LEN);
+      int end = cq.round(val, decimals, buf, len);
+      if (end < 0)
+        return print(cq.roundBig(val, decimals));
+      len = end;
+      return this;
+    }
+
+    public fastOut print(Object o) {
+      return print(String.valueOf(o));
+    }
+
+    public fastOut println() {
+      return print('\n');
+    }
+
+    public fastOut println(char c) {
+      return print(c).println();
+    }
+
+    public fastOut println(int v) {
+      return print(v).println();
+    }
+
+    public fastOut println(long v) {
+      return print(v).println();
+    }
+
+    public fastOut println(String s) {
+      return print(s).println();
+    }
+
+    public fastOut println(double val, int decimals) {
+      return print(val, decimals).println();
+    }
+
+    public fastOut println(Object o) {
+      return print(o).println();
+    }
+
+    public void flush() {
+      writeBuf();
+      try {
+        os.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    // stdout stays open so later System.out prints still work
+    public void close() {
+      flush();
+    }
   }
 
-}
\ No newline at end of file
+}